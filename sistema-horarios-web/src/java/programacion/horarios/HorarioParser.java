@@ -9,14 +9,21 @@ import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
+import programacion.horarios.nucleo.ConstructorMateria;
 import programacion.horarios.nucleo.Materia;
 import programacion.horarios.nucleo.Profesor;
 import programacion.horarios.nucleo.DiaSemana;
 import programacion.horarios.nucleo.FranjaHoraria;
+import programacion.horarios.nucleo.optimizado.InternadorCatalogo;
 
 public class HorarioParser {
 
     public static List<Materia> parseHorarios(String html) {
+        return parseHorarios(html, new InternadorCatalogo());
+    }
+
+    // Las franjas y profesores repetidos entre filas se comparten vía el internador
+    public static List<Materia> parseHorarios(String html, InternadorCatalogo internador) {
         List<Materia> materias = new ArrayList<>();
         Document doc = Jsoup.parse(html);
 
@@ -47,8 +54,9 @@ public class HorarioParser {
             String nombreProf = nombreApellido[0];
             String apellidoProf = nombreApellido[1];
 
-            Profesor profesor = new Profesor(nombreProf, apellidoProf, 0.0);
-            Materia m = new Materia(profesor, materia, grupo);
+            Profesor profesor = internador.profesor(nombreProf, apellidoProf, 0.0);
+            ConstructorMateria m = Materia.constructor(profesor, materia, grupo)
+                .conInternador(internador);
 
             if (tieneHora(lunes)) {
                 m.agregarBloqueHorario(DiaSemana.LUNES, new FranjaHoraria(convertirRango(lunes)));
@@ -69,7 +77,7 @@ public class HorarioParser {
                 m.agregarBloqueHorario(DiaSemana.SABADO, new FranjaHoraria(convertirRango(sabado)));
             }
 
-            materias.add(m);
+            materias.add(m.construir());
         }
 
         return materias;
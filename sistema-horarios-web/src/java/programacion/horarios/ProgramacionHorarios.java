@@ -212,11 +212,13 @@ private static void demostrarPolimorfismo(RepositorioMaterias repositorio) {
         Profesor profesor1 = new Profesor("Juan", "Pérez", 9.0);
         Profesor profesor2 = new Profesor("María", "García", 8.5);
         
-        Materia materia1 = new Materia(profesor1, "Matemáticas", "PRUEBA");
-        materia1.agregarBloqueHorario("135", "0900-1030");
+        Materia materia1 = Materia.constructor(profesor1, "Matemáticas", "PRUEBA")
+            .agregarBloqueHorario("135", "0900-1030")
+            .construir();
         
-        Materia materia2 = new Materia(profesor2, "Física", "PRUEBA");
-        materia2.agregarBloqueHorario("24", "0900-1030");
+        Materia materia2 = Materia.constructor(profesor2, "Física", "PRUEBA")
+            .agregarBloqueHorario("24", "0900-1030")
+            .construir();
         
         // Usar la interfaz Programable
         List<Programable> programables = List.of(materia1, materia2);
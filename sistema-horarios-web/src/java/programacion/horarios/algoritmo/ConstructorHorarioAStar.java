@@ -1,38 +1,44 @@
 package programacion.horarios.algoritmo;
 
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashSet;
 import java.util.List;
-import java.util.PriorityQueue;
 import java.util.Set;
 import programacion.horarios.constructor.ConstructorHorario;
 import programacion.horarios.nucleo.Materia;
 import programacion.horarios.nucleo.RepositorioMaterias;
 import programacion.horarios.nucleo.Seleccion;
+import programacion.horarios.nucleo.optimizado.ConjuntoHashLargo;
+import programacion.horarios.nucleo.optimizado.DominiosConsistentes;
+import programacion.horarios.nucleo.optimizado.MatrizConflictos;
+import programacion.horarios.nucleo.optimizado.TablaZobrist;
 
 public class ConstructorHorarioAStar extends ConstructorHorario {
     
-    private static class NodoEstado {
-        final List<Seleccion> asignadas;
-        final Set<String> materiasRestantes;
-        final double costoG; // Costo actual
-        final double costoH; // Heurística
-        
-        NodoEstado(List<Seleccion> asignadas, Set<String> restantes, 
-                  double costoG, double costoH) {
-            this.asignadas = asignadas;
-            this.materiasRestantes = restantes;
-            this.costoG = costoG;
-            this.costoH = costoH;
-        }
-        
-        double costoF() { return costoG + costoH; }
-    }
+    /** Presupuesto de nodos abiertos usado por el modo acotado del servlet. */
+    public static final int PRESUPUESTO_POR_DEFECTO = 200_000;
+    
+    private final int presupuestoNodos;
+    private long nodosDescartados;
+    
+    // Por búsqueda: materias requeridas (índice = bit de la máscara), sus secciones y su costo mínimo
+    private List<String> materias;
+    private int[][] opciones;
+    private double[] costoMinimo;
     
     public ConstructorHorarioAStar(RepositorioMaterias repositorio, 
                                   String nombreGrupoObjetivo) {
+        this(repositorio, nombreGrupoObjetivo, FronteraAcotada.SIN_LIMITE);
+    }
+    
+    /**
+     * A* con memoria acotada: la lista abierta guarda a lo más {@code presupuestoNodos}
+     * nodos y descarta los de peor f. Si llega a descartar, devuelve el mejor horario
+     * completo que haya visto en lugar de agotar el heap.
+     */
+    public ConstructorHorarioAStar(RepositorioMaterias repositorio, 
+                                  String nombreGrupoObjetivo, int presupuestoNodos) {
         super(repositorio, nombreGrupoObjetivo);
+        this.presupuestoNodos = presupuestoNodos;
     }
     
     @Override
@@ -42,103 +48,120 @@ public class ConstructorHorarioAStar extends ConstructorHorario {
         
         Set<String> materiasRequeridas = repositorio.calcularCoberturaGrupos()
             .get(mejorGrupo);
+        DominiosConsistentes dominios = repositorio.obtenerDominios(materiasRequeridas);
+        if (!dominios.esFactible()) return List.of(); // se sabe sin expandir un solo nodo
         
-        return buscarConAStar(materiasRequeridas);
+        return buscarConAStar(materiasRequeridas, dominios);
     }
     
-    private List<Seleccion> buscarConAStar(Set<String> materiasRequeridas) {
-        PriorityQueue<NodoEstado> colaPrioridad = new PriorityQueue<>(
-            Comparator.comparingDouble(NodoEstado::costoF)
-        );
+    private List<Seleccion> buscarConAStar(Set<String> materiasRequeridas, DominiosConsistentes dominios) {
+        prepararMaterias(materiasRequeridas, dominios);
+        FronteraAcotada colaPrioridad = new FronteraAcotada(presupuestoNodos);
         
         // Estado inicial
-        NodoEstado inicial = new NodoEstado(
-            new ArrayList<>(), 
-            new HashSet<>(materiasRequeridas), 
-            0.0, 
-            calcularHeuristica(materiasRequeridas)
-        );
+        long todas = NodoBusqueda.mascaraInicial(materias.size());
+        colaPrioridad.agregar(NodoBusqueda.raiz(todas, calcularHeuristica(todas)));
+        // Como la próxima materia depende solo del estado, cada estado tiene un único camino;
+        // los cerrados son una red de seguridad y en el modo acotado no se guardan
+        ConjuntoHashLargo<NodoBusqueda> visitados = presupuestoNodos == FronteraAcotada.SIN_LIMITE
+            ? new ConjuntoHashLargo<>(NodoBusqueda::mismoEstado) : null;
+        NodoBusqueda mejorCompleto = null;
         
-        colaPrioridad.offer(inicial);
-        Set<String> visitados = new HashSet<>();
-        
-        while (!colaPrioridad.isEmpty()) {
-            NodoEstado actual = colaPrioridad.poll();
+        while (!colaPrioridad.estaVacia()) {
+            NodoBusqueda actual = colaPrioridad.extraer();
             
             // Estado objetivo alcanzado
-            if (actual.materiasRestantes.isEmpty()) {
-                return actual.asignadas;
+            if (actual.esMeta()) {
+                mejorCompleto = mejorMeta(mejorCompleto, actual);
+                break;
             }
             
-            String claveEstado = generarClaveEstado(actual);
-            if (visitados.contains(claveEstado)) continue;
-            visitados.add(claveEstado);
+            // El estado es el conjunto de secciones elegidas
+            if (visitados != null && !visitados.agregar(actual.obtenerHash(), actual)) continue;
             
             // Generar estados sucesores
-            generarSucesores(actual, colaPrioridad);
+            mejorCompleto = generarSucesores(actual, colaPrioridad, mejorCompleto);
         }
         
-        return List.of(); // No se encontró solución
+        nodosDescartados = colaPrioridad.obtenerDescartados();
+        if (mejorCompleto == null) return List.of(); // No se encontró solución
+        return materializarSelecciones(reconstruir(mejorCompleto));
+    }
+    
+    // Meta de menor costo; las metas se recuerdan al generarse por si el presupuesto las descarta
+    private static NodoBusqueda mejorMeta(NodoBusqueda actual, NodoBusqueda candidata) {
+        return actual == null || candidata.obtenerCostoG() < actual.obtenerCostoG() ? candidata : actual;
     }
     
-    private void generarSucesores(NodoEstado actual, 
-                                 PriorityQueue<NodoEstado> cola) {
-        if (actual.materiasRestantes.isEmpty()) return;
+    private void prepararMaterias(Set<String> materiasRequeridas, DominiosConsistentes dominios) {
+        materias = new ArrayList<>(materiasRequeridas);
+        NodoBusqueda.mascaraInicial(materias.size()); // valida el límite antes de preparar nada
+        opciones = new int[materias.size()][];
+        costoMinimo = new double[materias.size()];
+        for (int m = 0; m < materias.size(); m++) {
+            // Solo las secciones de los dominios consistentes; la heurística también sale de ellas
+            List<Materia> secciones = repositorio.obtenerPorNombreMateria(materias.get(m)).stream()
+                .filter(seccion -> dominios.permite(repositorio.obtenerIdSeccion(seccion)))
+                .toList();
+            opciones[m] = new int[secciones.size()];
+            double mejor = 0.0;
+            for (int k = 0; k < secciones.size(); k++) {
+                opciones[m][k] = repositorio.obtenerIdSeccion(secciones.get(k));
+                mejor = Math.max(mejor, secciones.get(k).obtenerCalificacion());
+            }
+            costoMinimo[m] = 10.0 - mejor;
+        }
+    }
+    
+    private NodoBusqueda generarSucesores(NodoBusqueda actual, FronteraAcotada cola,
+                                         NodoBusqueda mejorCompleto) {
+        if (actual.esMeta()) return mejorCompleto;
         
-        String proximaMateria = actual.materiasRestantes.iterator().next();
-        List<Materia> opciones = repositorio.obtenerPorNombreMateria(proximaMateria);
+        MatrizConflictos matriz = repositorio.obtenerMatrizConflictos();
+        TablaZobrist zobrist = repositorio.obtenerTablaZobrist();
+        int proximaMateria = Long.numberOfTrailingZeros(actual.obtenerRestantes());
+        long nuevasRestantes = actual.obtenerRestantes() & ~(1L << proximaMateria);
+        double nuevoCostoH = calcularHeuristica(nuevasRestantes);
         
-        for (Materia opcion : opciones) {
-            if (esCompatible(opcion, actual.asignadas)) {
-                List<Seleccion> nuevasAsignadas = new ArrayList<>(actual.asignadas);
-                nuevasAsignadas.add(new Seleccion(clonarAGrupo(opcion), 
-                                                opcion.obtenerGrupo()));
-                
-                Set<String> nuevasRestantes = new HashSet<>(actual.materiasRestantes);
-                nuevasRestantes.remove(proximaMateria);
-                
-                double nuevoCostoG = actual.costoG + (10.0 - opcion.obtenerCalificacion());
-                double nuevoCostoH = calcularHeuristica(nuevasRestantes);
-                
-                NodoEstado sucesor = new NodoEstado(nuevasAsignadas, nuevasRestantes, 
-                                                   nuevoCostoG, nuevoCostoH);
-                cola.offer(sucesor);
+        for (int id : opciones[proximaMateria]) {
+            if (!actual.chocaCon(matriz, id)) {
+                double nuevoCostoG = actual.obtenerCostoG()
+                    + (10.0 - repositorio.obtenerSeccion(id).obtenerCalificacion());
+                NodoBusqueda sucesor = actual.hijo(id, proximaMateria,
+                    zobrist.alternar(actual.obtenerHash(), id), nuevoCostoG, nuevoCostoH);
+                if (sucesor.esMeta()) {
+                    mejorCompleto = mejorMeta(mejorCompleto, sucesor);
+                }
+                cola.agregar(sucesor);
             }
         }
+        return mejorCompleto;
     }
     
-    private boolean esCompatible(Materia nueva, List<Seleccion> asignadas) {
-        for (Seleccion sel : asignadas) {
-            if (nueva.tieneConflictoCon(sel.asignada())) {
-                return false;
-            }
+    private List<Materia> reconstruir(NodoBusqueda meta) {
+        List<Materia> asignadas = new ArrayList<>();
+        for (int id : meta.secciones()) {
+            asignadas.add(repositorio.obtenerSeccion(id));
         }
-        return true;
+        return asignadas;
     }
     
-    private double calcularHeuristica(Set<String> materiasRestantes) {
-        // Heurística: suma de las mejores calificaciones posibles restantes
-        return materiasRestantes.stream()
-            .mapToDouble(materia -> {
-                return repositorio.obtenerPorNombreMateria(materia).stream()
-                    .mapToDouble(Materia::obtenerCalificacion)
-                    .max().orElse(0.0);
-            })
-            .map(cal -> 10.0 - cal) // Convertir a costo (menor calificación = mayor costo)
-            .sum();
+    private double calcularHeuristica(long restantes) {
+        // Heurística: suma de las mejores calificaciones posibles restantes, como costo
+        double h = 0.0;
+        for (long r = restantes; r != 0; r &= r - 1) {
+            h += costoMinimo[Long.numberOfTrailingZeros(r)];
+        }
+        return h;
     }
     
-    private String generarClaveEstado(NodoEstado estado) {
-        StringBuilder sb = new StringBuilder();
-        estado.asignadas.stream()
-            .map(sel -> sel.asignada().obtenerIdentificador())
-            .sorted()
-            .forEach(id -> sb.append(id).append("|"));
-        return sb.toString();
+    /** Nodos que la última búsqueda descartó por el presupuesto (cero: resultado óptimo). */
+    public long obtenerNodosDescartados() {
+        return nodosDescartados;
     }
     
     @Override
     protected boolean validarRestricciones(List<Materia> seleccionadas) {
         return true; // Ya validado durante la búsqueda
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,80 @@
+package programacion.horarios.algoritmo;
+
+import java.util.List;
+import programacion.horarios.constructor.ConstructorHorario;
+import programacion.horarios.constructor.optimizado.ConstructorHorarioOptimizado;
+import programacion.horarios.estrategia.EstrategiaEvaluacion;
+import programacion.horarios.nucleo.Materia;
+import programacion.horarios.nucleo.RepositorioMaterias;
+import programacion.horarios.nucleo.Seleccion;
+
+/**
+ * Constructor "anytime": entrega de inmediato el horario voraz de
+ * {@link ConstructorHorarioOptimizado} y luego lo mejora con ramificación y acotación
+ * hasta demostrar el óptimo o agotar el presupuesto de tiempo. Cada mejora se
+ * notifica al oyente (un horario completo siempre mejora a uno al que le faltan
+ * materias); el resultado indica si el óptimo quedó demostrado.
+ */
+public class ConstructorHorarioAnytime extends ConstructorHorario {
+    private final EstrategiaEvaluacion estrategia;
+    private final long presupuestoMillis;
+    private final OyenteIncumbente oyente;
+
+    public ConstructorHorarioAnytime(RepositorioMaterias repositorio, String nombreGrupoObjetivo,
+                                     EstrategiaEvaluacion estrategia, long presupuestoMillis) {
+        this(repositorio, nombreGrupoObjetivo, estrategia, presupuestoMillis, null);
+    }
+
+    public ConstructorHorarioAnytime(RepositorioMaterias repositorio, String nombreGrupoObjetivo,
+                                     EstrategiaEvaluacion estrategia, long presupuestoMillis,
+                                     OyenteIncumbente oyente) {
+        super(repositorio, nombreGrupoObjetivo);
+        if (presupuestoMillis < 0) {
+            throw new IllegalArgumentException("El presupuesto de tiempo no puede ser negativo: " + presupuestoMillis);
+        }
+        this.estrategia = estrategia;
+        this.presupuestoMillis = presupuestoMillis;
+        this.oyente = oyente;
+    }
+
+    @Override
+    public List<Seleccion> construir() {
+        return construirConResultado().selecciones();
+    }
+
+    public ResultadoBusqueda construirConResultado() {
+        long inicio = System.nanoTime();
+
+        // 1. Solución voraz inmediata (puede dejar materias sin cubrir)
+        List<Seleccion> voraz = new ConstructorHorarioOptimizado(repositorio, nombreGrupoObjetivo).construir();
+        double puntajeVoraz = estrategia.evaluar(voraz.stream().map(Seleccion::asignada).toList());
+        if (oyente != null && !voraz.isEmpty()) {
+            oyente.nuevoIncumbente(voraz, puntajeVoraz, transcurrido(inicio));
+        }
+
+        // 2. Búsqueda exacta con el tiempo restante, sembrada con la voraz si es completa
+        long restante = Math.max(0, presupuestoMillis - transcurrido(inicio));
+        OyenteIncumbente oyenteExacto = oyente == null ? null
+            : (horario, puntaje, ms) -> oyente.nuevoIncumbente(horario, puntaje, transcurrido(inicio));
+        ResultadoBusqueda exacto = new ConstructorHorarioRamificacionAcotacion(
+                repositorio, nombreGrupoObjetivo, estrategia)
+            .buscar(restante, voraz, oyenteExacto);
+
+        if (exacto.selecciones().isEmpty()) {
+            // Sin horario completo (a tiempo o en absoluto): queda el voraz, aunque le falten materias
+            return new ResultadoBusqueda(voraz, puntajeVoraz, false, exacto.cortadaPorTiempo(),
+                                         transcurrido(inicio));
+        }
+        return new ResultadoBusqueda(exacto.selecciones(), exacto.puntaje(), exacto.optimoDemostrado(),
+                                     exacto.cortadaPorTiempo(), transcurrido(inicio));
+    }
+
+    private static long transcurrido(long inicio) {
+        return (System.nanoTime() - inicio) / 1_000_000L;
+    }
+
+    @Override
+    protected boolean validarRestricciones(List<Materia> seleccionadas) {
+        return true; // la voraz y la búsqueda exacta solo combinan secciones compatibles
+    }
+}
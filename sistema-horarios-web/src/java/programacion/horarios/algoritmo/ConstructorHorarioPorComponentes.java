@@ -0,0 +1,210 @@
+package programacion.horarios.algoritmo;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+import programacion.horarios.constructor.ConstructorHorario;
+import programacion.horarios.estrategia.EstrategiaCocienteDeSumas;
+import programacion.horarios.estrategia.EstrategiaEvaluacion;
+import programacion.horarios.estrategia.EstrategiaPonderadaPorMinutos;
+import programacion.horarios.nucleo.Materia;
+import programacion.horarios.nucleo.RegistroIdentificadores;
+import programacion.horarios.nucleo.RepositorioMaterias;
+import programacion.horarios.nucleo.Seleccion;
+import programacion.horarios.nucleo.optimizado.ComponentesConflicto;
+import programacion.horarios.nucleo.optimizado.DominiosConsistentes;
+import programacion.horarios.nucleo.optimizado.MatrizConflictos;
+
+/**
+ * Búsqueda exacta por componentes del grafo de conflictos entre materias
+ * ({@link ComponentesConflicto}): cada componente se resuelve por separado y en
+ * paralelo, y los horarios parciales se unen sin choques.
+ * <p>
+ * El puntaje de las estrategias separables es un cociente de sumas, que no se reparte
+ * entre componentes; por eso se usa el método de Dinkelbach: con λ igual al puntaje
+ * del horario actual, cada componente maximiza Σ (numerador − λ·denominador), que sí
+ * es aditivo, y se repite hasta que ningún horario supera a λ. El resultado es el
+ * mismo óptimo que el de {@link ConstructorHorarioRamificacionAcotacion}. Con una sola
+ * componente o con estrategias que no son cociente de sumas se delega en ella.
+ */
+public class ConstructorHorarioPorComponentes extends ConstructorHorario {
+    private static final double TOLERANCIA = 1e-9;
+    private static final int MAX_ITERACIONES_DINKELBACH = 100; // converge en pocas; es solo un tope
+
+    private final EstrategiaEvaluacion estrategia;
+    private final ForkJoinPool pool;
+
+    public ConstructorHorarioPorComponentes(RepositorioMaterias repositorio, String nombreGrupoObjetivo) {
+        this(repositorio, nombreGrupoObjetivo, new EstrategiaPonderadaPorMinutos());
+    }
+
+    public ConstructorHorarioPorComponentes(RepositorioMaterias repositorio, String nombreGrupoObjetivo,
+                                            EstrategiaEvaluacion estrategia) {
+        this(repositorio, nombreGrupoObjetivo, estrategia, ForkJoinPool.commonPool());
+    }
+
+    public ConstructorHorarioPorComponentes(RepositorioMaterias repositorio, String nombreGrupoObjetivo,
+                                            EstrategiaEvaluacion estrategia, ForkJoinPool pool) {
+        super(repositorio, nombreGrupoObjetivo);
+        this.estrategia = estrategia;
+        this.pool = pool;
+    }
+
+    public int contarComponentes() {
+        return ComponentesConflicto.calcular(repositorio.obtenerRegistro(),
+            repositorio.obtenerMatrizConflictos()).length;
+    }
+
+    @Override
+    public List<Seleccion> construir() {
+        RegistroIdentificadores registro = repositorio.obtenerRegistro();
+        int[][] componentes = ComponentesConflicto.calcular(registro, repositorio.obtenerMatrizConflictos());
+        if (componentes.length <= 1 || !(estrategia instanceof EstrategiaCocienteDeSumas cociente)) {
+            return new ConstructorHorarioRamificacionAcotacion(repositorio, nombreGrupoObjetivo, estrategia, pool)
+                .construir();
+        }
+        DominiosConsistentes dominios = repositorio.obtenerDominios(repositorio.obtenerTodosLosNombresMaterias());
+        if (!dominios.esFactible()) return List.of(); // alguna componente no admite horario completo
+
+        int total = registro.totalSecciones();
+        double[] numeradores = new double[total];
+        double[] denominadores = new double[total];
+        for (int id = 0; id < total; id++) {
+            numeradores[id] = cociente.numerador(registro.seccion(id));
+            denominadores[id] = cociente.denominador(registro.seccion(id));
+        }
+
+        int[][] actual = resolverComponentes(componentes, dominios, numeradores, denominadores, 0.0);
+        if (actual == null) return List.of();
+        for (int iteracion = 0; iteracion < MAX_ITERACIONES_DINKELBACH; iteracion++) {
+            double lambda = cociente(actual, numeradores, denominadores);
+            int[][] candidata = resolverComponentes(componentes, dominios, numeradores, denominadores, lambda);
+            double excedente = 0;
+            for (int[] secciones : candidata) {
+                for (int id : secciones) excedente += numeradores[id] - lambda * denominadores[id];
+            }
+            if (excedente <= TOLERANCIA) break; // nada supera a λ: el horario actual es óptimo
+            actual = candidata;
+        }
+
+        List<Materia> elegidas = new ArrayList<>();
+        for (int[] secciones : actual) {
+            for (int id : secciones) elegidas.add(registro.seccion(id));
+        }
+        return materializarSelecciones(elegidas);
+    }
+
+    private static double cociente(int[][] solucion, double[] numeradores, double[] denominadores) {
+        double numerador = 0;
+        double denominador = 0;
+        for (int[] secciones : solucion) {
+            for (int id : secciones) {
+                numerador += numeradores[id];
+                denominador += denominadores[id];
+            }
+        }
+        return denominador == 0 ? 0.0 : numerador / denominador;
+    }
+
+    /** Mejor horario de cada componente con peso numerador − λ·denominador; null si alguna no tiene. */
+    private int[][] resolverComponentes(int[][] componentes, DominiosConsistentes dominios,
+                                        double[] numeradores, double[] denominadores, double lambda) {
+        double[] pesos = new double[numeradores.length];
+        for (int id = 0; id < pesos.length; id++) {
+            pesos[id] = numeradores[id] - lambda * denominadores[id];
+        }
+        List<Componente> tareas = new ArrayList<>(componentes.length);
+        for (int[] materias : componentes) {
+            tareas.add(new Componente(materias, dominios, pesos));
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tareas);
+            }
+        });
+        int[][] solucion = new int[componentes.length][];
+        for (int c = 0; c < componentes.length; c++) {
+            solucion[c] = tareas.get(c).join();
+            if (solucion[c] == null) return null;
+        }
+        return solucion;
+    }
+
+    /**
+     * Ramificación y acotación secuencial de una componente con objetivo aditivo, sobre
+     * los dominios consistentes. Las materias de menos secciones van primero y las
+     * secciones de mayor a menor peso; la cota suma el mejor peso compatible de cada
+     * materia pendiente.
+     */
+    @SuppressWarnings("serial")
+    private final class Componente extends RecursiveTask<int[]> {
+        private final MatrizConflictos matriz = repositorio.obtenerMatrizConflictos();
+        private final double[] pesos;
+        private final int[][] opciones; // ids de sección por nivel
+        private int[] mejor;
+        private double mejorPeso = Double.NEGATIVE_INFINITY;
+
+        Componente(int[] materias, DominiosConsistentes dominios, double[] pesos) {
+            RegistroIdentificadores registro = repositorio.obtenerRegistro();
+            this.pesos = pesos;
+            this.opciones = IntStream.of(materias)
+                .mapToObj(materia -> dominios.filtrar(registro.seccionesDeMateria(materia)))
+                .sorted(Comparator.comparingInt((int[] secciones) -> secciones.length))
+                .map(secciones -> IntStream.of(secciones).boxed()
+                    .sorted(Comparator.comparingDouble((Integer id) -> pesos[id]).reversed())
+                    .mapToInt(Integer::intValue)
+                    .toArray())
+                .toArray(int[][]::new);
+        }
+
+        @Override
+        protected int[] compute() {
+            int palabras = matriz.obtenerPalabrasPorFila();
+            long[][] bloqueadasPorNivel = new long[opciones.length + 1][palabras];
+            explorar(0, new int[opciones.length], 0.0, bloqueadasPorNivel);
+            return mejor;
+        }
+
+        private void explorar(int nivel, int[] elegidas, double peso, long[][] bloqueadasPorNivel) {
+            if (nivel == opciones.length) {
+                if (peso > mejorPeso + TOLERANCIA) {
+                    mejorPeso = peso;
+                    mejor = elegidas.clone();
+                }
+                return;
+            }
+            long[] bloqueadas = bloqueadasPorNivel[nivel];
+            double cota = peso;
+            for (int n = nivel; n < opciones.length; n++) {
+                int libre = primeraLibre(opciones[n], bloqueadas);
+                if (libre < 0) return; // materia sin sección compatible
+                cota += pesos[libre];
+            }
+            if (cota <= mejorPeso + TOLERANCIA) return;
+
+            for (int id : opciones[nivel]) {
+                if (MatrizConflictos.contiene(bloqueadas, id)) continue;
+                elegidas[nivel] = id;
+                matriz.acumularFila(id, bloqueadas, bloqueadasPorNivel[nivel + 1]);
+                explorar(nivel + 1, elegidas, peso + pesos[id], bloqueadasPorNivel);
+            }
+        }
+
+        private int primeraLibre(int[] secciones, long[] bloqueadas) {
+            for (int id : secciones) {
+                if (!MatrizConflictos.contiene(bloqueadas, id)) return id;
+            }
+            return -1;
+        }
+    }
+
+    @Override
+    protected boolean validarRestricciones(List<Materia> seleccionadas) {
+        return true; // cada componente solo combina secciones compatibles y entre componentes no hay choques
+    }
+}
@@ -0,0 +1,304 @@
+package programacion.horarios.algoritmo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicReference;
+import programacion.horarios.constructor.ConstructorHorario;
+import programacion.horarios.estrategia.EstrategiaEvaluacion;
+import programacion.horarios.estrategia.EstrategiaPonderadaPorMinutos;
+import programacion.horarios.nucleo.Materia;
+import programacion.horarios.nucleo.RegistroIdentificadores;
+import programacion.horarios.nucleo.RepositorioMaterias;
+import programacion.horarios.nucleo.Seleccion;
+import programacion.horarios.nucleo.optimizado.DominiosConsistentes;
+import programacion.horarios.nucleo.optimizado.MatrizConflictos;
+
+/**
+ * Ramificación y acotación exacta sobre el puntaje de la estrategia: devuelve el
+ * horario completo (una sección por materia, sin choques) de mayor puntaje.
+ * Los primeros niveles del árbol se reparten en tareas de un {@link ForkJoinPool};
+ * todas comparten el mejor horario encontrado y podan con la cota de la estrategia
+ * ({@link EstrategiaEvaluacion#cotaSuperior}). A igual puntaje gana el horario que
+ * prefiere secciones mejor calificadas en las primeras materias, así el resultado
+ * no depende del orden en que terminan los hilos.
+ * <p>
+ * {@link #buscar} admite además un presupuesto de tiempo, un horario semilla como
+ * primer incumbente y un oyente que recibe cada mejora.
+ */
+public class ConstructorHorarioRamificacionAcotacion extends ConstructorHorario {
+    private static final int NIVELES_PARALELOS = 3;
+    private static final double TOLERANCIA = 1e-9; // margen de redondeo entre cota y evaluación
+    private static final int NODOS_ENTRE_RELOJ = 1024;      // cada cuántos nodos se revisa el reloj
+    public static final long SIN_LIMITE_TIEMPO = Long.MAX_VALUE;
+
+    private final EstrategiaEvaluacion estrategia;
+    private final ForkJoinPool pool;
+
+    private record Solucion(double puntaje, int[] rangos) {
+        boolean esMejorQue(Solucion otra) {
+            if (otra == null) return true;
+            int comparacion = Double.compare(puntaje, otra.puntaje);
+            return comparacion > 0 || (comparacion == 0 && Arrays.compare(rangos, otra.rangos) < 0);
+        }
+    }
+
+    public ConstructorHorarioRamificacionAcotacion(RepositorioMaterias repositorio, String nombreGrupoObjetivo) {
+        this(repositorio, nombreGrupoObjetivo, new EstrategiaPonderadaPorMinutos());
+    }
+
+    public ConstructorHorarioRamificacionAcotacion(RepositorioMaterias repositorio, String nombreGrupoObjetivo,
+                                                   EstrategiaEvaluacion estrategia) {
+        this(repositorio, nombreGrupoObjetivo, estrategia, ForkJoinPool.commonPool());
+    }
+
+    public ConstructorHorarioRamificacionAcotacion(RepositorioMaterias repositorio, String nombreGrupoObjetivo,
+                                                   EstrategiaEvaluacion estrategia, ForkJoinPool pool) {
+        super(repositorio, nombreGrupoObjetivo);
+        this.estrategia = estrategia;
+        this.pool = pool;
+    }
+
+    @Override
+    public List<Seleccion> construir() {
+        return buscar(SIN_LIMITE_TIEMPO, List.of(), null).selecciones();
+    }
+
+    /**
+     * Busca hasta demostrar el óptimo o agotar {@code presupuestoMillis}. Si {@code semilla}
+     * es un horario completo y válido se usa como primer incumbente (el oyente no lo recibe,
+     * quien llama ya lo conoce). Al cortarse por tiempo se devuelve el mejor horario hallado.
+     */
+    public ResultadoBusqueda buscar(long presupuestoMillis, List<Seleccion> semilla, OyenteIncumbente oyente) {
+        long inicio = System.nanoTime();
+        Set<String> materiasRequeridas = repositorio.obtenerTodosLosNombresMaterias();
+        if (materiasRequeridas.isEmpty()) return new ResultadoBusqueda(List.of(), 0.0, false, false, 0);
+        DominiosConsistentes dominios = repositorio.obtenerDominios(materiasRequeridas);
+        if (!dominios.esFactible()) { // ningún horario completo: no hace falta buscar
+            return new ResultadoBusqueda(List.of(), 0.0, false, false, (System.nanoTime() - inicio) / 1_000_000L);
+        }
+
+        Busqueda busqueda = new Busqueda(materiasRequeridas, dominios, inicio, presupuestoMillis, oyente);
+        busqueda.sembrar(semilla);
+        pool.invoke(busqueda.new Tarea(0, new int[busqueda.total],
+            new long[repositorio.obtenerMatrizConflictos().obtenerPalabrasPorFila()]));
+
+        Solucion mejor = busqueda.incumbente.get();
+        long milisegundos = busqueda.milisegundos();
+        if (mejor == null) {
+            return new ResultadoBusqueda(List.of(), 0.0, false, busqueda.cortada, milisegundos);
+        }
+        return new ResultadoBusqueda(busqueda.materializar(mejor), mejor.puntaje,
+            !busqueda.cortada, busqueda.cortada, milisegundos);
+    }
+
+    @Override
+    protected boolean validarRestricciones(List<Materia> seleccionadas) {
+        return true; // la búsqueda solo combina secciones compatibles
+    }
+
+    /** Datos de una búsqueda: materias y secciones en el orden de {@link OrdenBusqueda}. */
+    private final class Busqueda {
+        final MatrizConflictos matriz = repositorio.obtenerMatrizConflictos();
+        final RegistroIdentificadores registro = repositorio.obtenerRegistro();
+        final int total;
+        final int[][] opciones; // ids de sección por nivel
+        final AtomicReference<Solucion> incumbente = new AtomicReference<>();
+        final long inicio;
+        final long limite;            // instante (nanoTime) en que se corta la búsqueda
+        final OyenteIncumbente oyente;
+        volatile boolean cortada;
+
+        Busqueda(Set<String> materias, DominiosConsistentes dominios, long inicio, long presupuestoMillis,
+                 OyenteIncumbente oyente) {
+            this.inicio = inicio;
+            this.limite = presupuestoMillis == SIN_LIMITE_TIEMPO
+                ? SIN_LIMITE_TIEMPO : inicio + presupuestoMillis * 1_000_000L;
+            this.oyente = oyente;
+            this.opciones = OrdenBusqueda.opcionesPorNivel(registro, materias, dominios);
+            this.total = opciones.length;
+        }
+
+        Materia seccion(int nivel, int rango) {
+            return registro.seccion(opciones[nivel][rango]);
+        }
+
+        List<Seleccion> materializar(Solucion solucion) {
+            List<Materia> elegidas = new ArrayList<>(total);
+            for (int nivel = 0; nivel < total; nivel++) {
+                elegidas.add(seccion(nivel, solucion.rangos[nivel]));
+            }
+            return materializarSelecciones(elegidas);
+        }
+
+        long milisegundos() {
+            return (System.nanoTime() - inicio) / 1_000_000L;
+        }
+
+        /** Toma la semilla como incumbente si cubre cada materia una vez y no tiene choques. */
+        void sembrar(List<Seleccion> semilla) {
+            if (semilla == null || semilla.size() != total) return;
+            int[] nivelDeMateria = new int[registro.totalMaterias()];
+            Arrays.fill(nivelDeMateria, -1);
+            for (int nivel = 0; nivel < total; nivel++) {
+                nivelDeMateria[registro.materiaDeSeccion(opciones[nivel][0])] = nivel;
+            }
+            int[] rangos = new int[total];
+            Arrays.fill(rangos, -1);
+            for (Seleccion seleccion : semilla) {
+                int id = registro.idSeccion(seleccion.asignada());
+                if (id < 0) return;
+                int nivel = nivelDeMateria[registro.materiaDeSeccion(id)];
+                if (nivel < 0 || rangos[nivel] >= 0) return;
+                for (int rango = 0; rango < opciones[nivel].length; rango++) {
+                    if (opciones[nivel][rango] == id) rangos[nivel] = rango;
+                }
+                if (rangos[nivel] < 0) return; // sección podada: no está en ningún horario completo
+            }
+            List<Materia> elegidas = new ArrayList<>(total);
+            for (int nivel = 0; nivel < total; nivel++) {
+                Materia seccion = seccion(nivel, rangos[nivel]);
+                for (int previa = 0; previa < nivel; previa++) {
+                    if (matriz.hayConflicto(opciones[nivel][rangos[nivel]], opciones[previa][rangos[previa]])) {
+                        return;
+                    }
+                }
+                elegidas.add(seccion);
+            }
+            incumbente.set(new Solucion(estrategia.evaluar(elegidas), rangos));
+        }
+
+        /**
+         * Calcula la mejor sección compatible de cada materia pendiente y decide si vale
+         * la pena seguir: falso si alguna se quedó sin opciones o si la cota no alcanza
+         * al mejor horario conocido.
+         */
+        boolean prometedor(int nivel, long[] bloqueadas, List<Materia> asignadas, List<Materia> mejores) {
+            mejores.clear();
+            for (int m = nivel; m < total; m++) {
+                Materia mejor = null;
+                for (int id : opciones[m]) {
+                    if (!MatrizConflictos.contiene(bloqueadas, id)) {
+                        mejor = registro.seccion(id);
+                        break;
+                    }
+                }
+                if (mejor == null) return false;
+                mejores.add(mejor);
+            }
+            Solucion actual = incumbente.get();
+            return actual == null
+                || estrategia.cotaSuperior(asignadas, mejores) >= actual.puntaje - TOLERANCIA;
+        }
+
+        Solucion evaluarHoja(int[] rangos, List<Materia> asignadas) {
+            Solucion candidata = new Solucion(estrategia.evaluar(asignadas), rangos.clone());
+            Solucion actual;
+            do {
+                actual = incumbente.get();
+                if (!candidata.esMejorQue(actual)) return null;
+            } while (!incumbente.compareAndSet(actual, candidata));
+            if (oyente != null) notificar(candidata);
+            return candidata;
+        }
+
+        // Serializado y solo si sigue vigente, para que el oyente vea puntajes crecientes
+        private synchronized void notificar(Solucion solucion) {
+            if (incumbente.get() == solucion) {
+                oyente.nuevoIncumbente(materializar(solucion), solucion.puntaje, milisegundos());
+            }
+        }
+
+        Solucion mejorEntre(Solucion a, Solucion b) {
+            return b != null && b.esMejorQue(a) ? b : a;
+        }
+
+        /** Subárbol cuyo prefijo ({@code rangos[0..nivel)}) ya está fijado. */
+        @SuppressWarnings("serial")
+        final class Tarea extends RecursiveTask<Solucion> {
+            private final int nivel;
+            private final int[] rangos;
+            private final long[] bloqueadas;
+            private int nodos;
+
+            Tarea(int nivel, int[] rangos, long[] bloqueadas) {
+                this.nivel = nivel;
+                this.rangos = rangos;
+                this.bloqueadas = bloqueadas;
+            }
+
+            @Override
+            protected Solucion compute() {
+                if (tiempoAgotado()) return null;
+                List<Materia> asignadas = new ArrayList<>(total);
+                for (int n = 0; n < nivel; n++) {
+                    asignadas.add(seccion(n, rangos[n]));
+                }
+                if (nivel >= NIVELES_PARALELOS || nivel == total) {
+                    return explorarSecuencial(asignadas);
+                }
+                if (!prometedor(nivel, bloqueadas, asignadas, new ArrayList<>(total - nivel))) {
+                    return null;
+                }
+
+                List<Tarea> hijas = new ArrayList<>();
+                for (int rango = 0; rango < opciones[nivel].length; rango++) {
+                    int id = opciones[nivel][rango];
+                    if (MatrizConflictos.contiene(bloqueadas, id)) continue;
+                    int[] rangosHija = rangos.clone();
+                    rangosHija[nivel] = rango;
+                    long[] bloqueadasHija = new long[bloqueadas.length];
+                    matriz.acumularFila(id, bloqueadas, bloqueadasHija);
+                    hijas.add(new Tarea(nivel + 1, rangosHija, bloqueadasHija));
+                }
+                Solucion mejor = null;
+                for (Tarea hija : invokeAll(hijas)) {
+                    mejor = mejorEntre(mejor, hija.join());
+                }
+                return mejor;
+            }
+
+            private Solucion explorarSecuencial(List<Materia> asignadas) {
+                // bloqueadasPorNivel[n] = secciones que chocan con alguna de las primeras n elegidas
+                long[][] bloqueadasPorNivel = new long[total + 1][];
+                for (int n = nivel; n <= total; n++) {
+                    bloqueadasPorNivel[n] = new long[bloqueadas.length];
+                }
+                System.arraycopy(bloqueadas, 0, bloqueadasPorNivel[nivel], 0, bloqueadas.length);
+                return explorar(nivel, rangos.clone(), bloqueadasPorNivel, asignadas,
+                    new ArrayList<>(total), null);
+            }
+
+            private Solucion explorar(int n, int[] rangosActuales, long[][] bloqueadasPorNivel,
+                                      List<Materia> asignadas, List<Materia> mejores, Solucion mejorLocal) {
+                if (n == total) {
+                    return mejorEntre(mejorLocal, evaluarHoja(rangosActuales, asignadas));
+                }
+                if (tiempoAgotado() || !prometedor(n, bloqueadasPorNivel[n], asignadas, mejores)) {
+                    return mejorLocal;
+                }
+                for (int rango = 0; rango < opciones[n].length; rango++) {
+                    int id = opciones[n][rango];
+                    if (MatrizConflictos.contiene(bloqueadasPorNivel[n], id)) continue;
+                    rangosActuales[n] = rango;
+                    asignadas.add(registro.seccion(id));
+                    matriz.acumularFila(id, bloqueadasPorNivel[n], bloqueadasPorNivel[n + 1]);
+                    mejorLocal = explorar(n + 1, rangosActuales, bloqueadasPorNivel, asignadas, mejores, mejorLocal);
+                    asignadas.remove(asignadas.size() - 1);
+                }
+                return mejorLocal;
+            }
+
+            private boolean tiempoAgotado() {
+                if (!cortada && limite != SIN_LIMITE_TIEMPO && ++nodos % NODOS_ENTRE_RELOJ == 0
+                        && System.nanoTime() - limite > 0) {
+                    cortada = true;
+                }
+                return cortada;
+            }
+        }
+    }
+}
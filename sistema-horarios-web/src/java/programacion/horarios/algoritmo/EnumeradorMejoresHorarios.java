@@ -0,0 +1,199 @@
+package programacion.horarios.algoritmo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import programacion.horarios.estrategia.EstrategiaEvaluacion;
+import programacion.horarios.nucleo.Materia;
+import programacion.horarios.nucleo.RegistroIdentificadores;
+import programacion.horarios.nucleo.RepositorioMaterias;
+import programacion.horarios.nucleo.Seleccion;
+import programacion.horarios.nucleo.optimizado.DominiosConsistentes;
+import programacion.horarios.nucleo.optimizado.MatrizConflictos;
+
+/**
+ * Enumera de forma perezosa los horarios completos y sin choques de mayor a menor
+ * puntaje (partición de Lawler). Cada subespacio se define por un prefijo de niveles
+ * fijados y un conjunto de secciones excluidas en el primer nivel libre; su mejor
+ * horario se halla con ramificación y acotación. Al entregar un horario, su subespacio
+ * se parte en a lo más un subespacio por nivel libre, y eso ocurre solo cuando se pide
+ * el siguiente: pedir los 3 primeros cuesta unas cuantas búsquedas, no la enumeración.
+ */
+public class EnumeradorMejoresHorarios implements Iterator<HorarioPuntuado> {
+    private static final double TOLERANCIA = 1e-9;
+
+    private final EstrategiaEvaluacion estrategia;
+    private final String nombreGrupoObjetivo;
+    private final RegistroIdentificadores registro;
+    private final MatrizConflictos matriz;
+    private final int[][] opciones;  // ids de sección por nivel, ver OrdenBusqueda
+    private final PriorityQueue<Subespacio> cola = new PriorityQueue<>(
+        Comparator.comparingDouble(Subespacio::puntaje).reversed()
+            .thenComparing(Subespacio::rangos, Arrays::compare));
+    private Subespacio porPartir; // último entregado; se parte en la siguiente consulta
+
+    /**
+     * @param rangos        mejor horario del subespacio (rango de sección por nivel)
+     * @param nivelLibre    los niveles anteriores están fijados a {@code rangos}
+     * @param excluidos     rangos prohibidos en {@code nivelLibre}
+     */
+    private record Subespacio(int[] rangos, double puntaje, int nivelLibre, int[] excluidos) { }
+
+    public EnumeradorMejoresHorarios(RepositorioMaterias repositorio, String nombreGrupoObjetivo,
+                                     EstrategiaEvaluacion estrategia) {
+        this.estrategia = estrategia;
+        this.nombreGrupoObjetivo = nombreGrupoObjetivo;
+        this.registro = repositorio.obtenerRegistro();
+        this.matriz = repositorio.obtenerMatrizConflictos();
+        Set<String> materias = repositorio.obtenerTodosLosNombresMaterias();
+        DominiosConsistentes dominios = repositorio.obtenerDominios(materias);
+        this.opciones = OrdenBusqueda.opcionesPorNivel(registro, materias, dominios);
+        if (opciones.length > 0 && dominios.esFactible()) {
+            resolver(new int[0], 0, new int[0]);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        partirPendiente();
+        return !cola.isEmpty();
+    }
+
+    @Override
+    public HorarioPuntuado next() {
+        if (!hasNext()) throw new NoSuchElementException("No hay más horarios");
+        porPartir = cola.poll();
+        return new HorarioPuntuado(materializar(porPartir.rangos), porPartir.puntaje);
+    }
+
+    /** Hasta {@code cantidad} horarios siguientes (menos si se agotan). */
+    public List<HorarioPuntuado> siguientes(int cantidad) {
+        List<HorarioPuntuado> resultado = new ArrayList<>(cantidad);
+        while (resultado.size() < cantidad && hasNext()) {
+            resultado.add(next());
+        }
+        return resultado;
+    }
+
+    /**
+     * Descarta hasta {@code cantidad} horarios siguientes sin convertirlos en selecciones:
+     * cada uno se saca de la cola y se parte igual que con {@link #next()}. Devuelve
+     * cuántos se descartaron.
+     */
+    public int saltar(int cantidad) {
+        int saltados = 0;
+        while (saltados < cantidad && hasNext()) {
+            porPartir = cola.poll();
+            saltados++;
+        }
+        return saltados;
+    }
+
+    // Partición de Lawler del último subespacio entregado
+    private void partirPendiente() {
+        if (porPartir == null) return;
+        Subespacio padre = porPartir;
+        porPartir = null;
+        for (int nivel = padre.nivelLibre; nivel < opciones.length; nivel++) {
+            int[] excluidos;
+            if (nivel == padre.nivelLibre) {
+                excluidos = Arrays.copyOf(padre.excluidos, padre.excluidos.length + 1);
+                excluidos[padre.excluidos.length] = padre.rangos[nivel];
+            } else {
+                excluidos = new int[] { padre.rangos[nivel] };
+            }
+            resolver(padre.rangos, nivel, excluidos);
+        }
+    }
+
+    // Mejor horario del subespacio (prefijo fijado hasta nivelLibre); si existe, va a la cola
+    private void resolver(int[] prefijo, int nivelLibre, int[] excluidos) {
+        int palabras = matriz.obtenerPalabrasPorFila();
+        long[][] bloqueadas = new long[opciones.length + 1][palabras];
+        int[] rangos = new int[opciones.length];
+        List<Materia> asignadas = new ArrayList<>(opciones.length);
+        for (int nivel = 0; nivel < nivelLibre; nivel++) {
+            int id = opciones[nivel][prefijo[nivel]];
+            rangos[nivel] = prefijo[nivel];
+            asignadas.add(registro.seccion(id));
+            matriz.acumularFila(id, bloqueadas[nivel], bloqueadas[nivel + 1]);
+        }
+        Busqueda busqueda = new Busqueda(nivelLibre, excluidos);
+        busqueda.explorar(nivelLibre, rangos, bloqueadas, asignadas, new ArrayList<>(opciones.length));
+        if (busqueda.mejorRangos != null) {
+            cola.add(new Subespacio(busqueda.mejorRangos, busqueda.mejorPuntaje, nivelLibre, excluidos));
+        }
+    }
+
+    private List<Seleccion> materializar(int[] rangos) {
+        List<Seleccion> selecciones = new ArrayList<>(rangos.length);
+        for (int nivel = 0; nivel < rangos.length; nivel++) {
+            Materia seccion = registro.seccion(opciones[nivel][rangos[nivel]]);
+            selecciones.add(new Seleccion(seccion.clonarConGrupo(nombreGrupoObjetivo), seccion.obtenerGrupo()));
+        }
+        return selecciones;
+    }
+
+    /** Ramificación y acotación secuencial dentro de un subespacio. */
+    private final class Busqueda {
+        private final int nivelLibre;
+        private final int[] excluidos;
+        int[] mejorRangos;
+        double mejorPuntaje;
+
+        Busqueda(int nivelLibre, int[] excluidos) {
+            this.nivelLibre = nivelLibre;
+            this.excluidos = excluidos;
+        }
+
+        private boolean permitido(int nivel, int rango, long[] bloqueadas) {
+            if (MatrizConflictos.contiene(bloqueadas, opciones[nivel][rango])) return false;
+            if (nivel != nivelLibre) return true;
+            for (int excluido : excluidos) {
+                if (excluido == rango) return false;
+            }
+            return true;
+        }
+
+        void explorar(int nivel, int[] rangos, long[][] bloqueadas, List<Materia> asignadas, List<Materia> mejores) {
+            if (nivel == opciones.length) {
+                double puntaje = estrategia.evaluar(asignadas);
+                if (mejorRangos == null || puntaje > mejorPuntaje
+                        || (puntaje == mejorPuntaje && Arrays.compare(rangos, mejorRangos) < 0)) {
+                    mejorRangos = rangos.clone();
+                    mejorPuntaje = puntaje;
+                }
+                return;
+            }
+            if (!prometedor(nivel, bloqueadas[nivel], asignadas, mejores)) return;
+            for (int rango = 0; rango < opciones[nivel].length; rango++) {
+                if (!permitido(nivel, rango, bloqueadas[nivel])) continue;
+                int id = opciones[nivel][rango];
+                rangos[nivel] = rango;
+                asignadas.add(registro.seccion(id));
+                matriz.acumularFila(id, bloqueadas[nivel], bloqueadas[nivel + 1]);
+                explorar(nivel + 1, rangos, bloqueadas, asignadas, mejores);
+                asignadas.remove(asignadas.size() - 1);
+            }
+        }
+
+        private boolean prometedor(int nivel, long[] bloqueadas, List<Materia> asignadas, List<Materia> mejores) {
+            mejores.clear();
+            for (int m = nivel; m < opciones.length; m++) {
+                int mejor = -1;
+                for (int rango = 0; rango < opciones[m].length && mejor < 0; rango++) {
+                    if (permitido(m, rango, bloqueadas)) mejor = rango;
+                }
+                if (mejor < 0) return false;
+                mejores.add(registro.seccion(opciones[m][mejor]));
+            }
+            return mejorRangos == null
+                || estrategia.cotaSuperior(asignadas, mejores) >= mejorPuntaje - TOLERANCIA;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package programacion.horarios.algoritmo;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+
+/**
+ * Lista abierta de A* con presupuesto de nodos, al estilo de SMA* simplificado:
+ * cuando se llena, descarta los nodos de peor f (a igual f, los menos profundos).
+ * Mientras no se descarte nada, el orden de extracción es el de un A* normal y la
+ * primera meta extraída es óptima.
+ * <p>
+ * Con {@link #SIN_LIMITE} nunca hay que sacar el peor, así que basta el montículo por f
+ * del A* exacto, sin la entrada ni el nodo de árbol por cada nodo abierto.
+ */
+public final class FronteraAcotada {
+    public static final int SIN_LIMITE = Integer.MAX_VALUE;
+    /** Estimación de bytes por nodo abierto con presupuesto: nodo, entrada y nodo del árbol rojo-negro. */
+    public static final int BYTES_POR_NODO = 128;
+
+    private record Entrada(NodoBusqueda nodo, long secuencia) { }
+
+    private static final Comparator<Entrada> ORDEN = Comparator
+        .comparingDouble((Entrada e) -> e.nodo().costoF())
+        .thenComparing(Comparator.comparingInt((Entrada e) -> e.nodo().obtenerProfundidad()).reversed())
+        .thenComparingLong(Entrada::secuencia);
+
+    private final PriorityQueue<NodoBusqueda> monticulo; // solo sin límite
+    private final TreeSet<Entrada> abiertos; // solo con presupuesto
+    private final int presupuesto;
+    private long secuencia;
+    private long descartados;
+
+    public FronteraAcotada(int presupuesto) {
+        if (presupuesto < 1) {
+            throw new IllegalArgumentException("El presupuesto de nodos debe ser positivo: " + presupuesto);
+        }
+        this.presupuesto = presupuesto;
+        boolean acotada = presupuesto != SIN_LIMITE;
+        this.monticulo = acotada ? null : new PriorityQueue<>(Comparator.comparingDouble(NodoBusqueda::costoF));
+        this.abiertos = acotada ? new TreeSet<>(ORDEN) : null;
+    }
+
+    /** Presupuesto de nodos que cabe en {@code bytes} según {@link #BYTES_POR_NODO}. */
+    public static int nodosParaBytes(long bytes) {
+        return (int) Math.max(1, Math.min(SIN_LIMITE, bytes / BYTES_POR_NODO));
+    }
+
+    public void agregar(NodoBusqueda nodo) {
+        if (monticulo != null) {
+            monticulo.offer(nodo);
+            return;
+        }
+        abiertos.add(new Entrada(nodo, secuencia++));
+        if (abiertos.size() > presupuesto) {
+            abiertos.pollLast();
+            descartados++;
+        }
+    }
+
+    public NodoBusqueda extraer() {
+        return monticulo != null ? monticulo.poll() : abiertos.pollFirst().nodo();
+    }
+
+    public boolean estaVacia() { return monticulo != null ? monticulo.isEmpty() : abiertos.isEmpty(); }
+    public int obtenerTamano() { return monticulo != null ? monticulo.size() : abiertos.size(); }
+
+    /** Nodos perdidos por el presupuesto; si es cero, la búsqueda fue exacta. */
+    public long obtenerDescartados() { return descartados; }
+}
@@ -0,0 +1,8 @@
+package programacion.horarios.algoritmo;
+
+import java.util.List;
+import programacion.horarios.nucleo.Seleccion;
+
+/** Un horario completo junto con su puntaje bajo la estrategia usada. */
+public record HorarioPuntuado(List<Seleccion> selecciones, double puntaje) {
+}
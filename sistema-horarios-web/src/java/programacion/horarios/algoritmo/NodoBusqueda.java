@@ -0,0 +1,88 @@
+package programacion.horarios.algoritmo;
+
+import java.util.Arrays;
+import programacion.horarios.nucleo.optimizado.MatrizConflictos;
+
+/**
+ * Nodo persistente de las búsquedas A*. Cada sucesor guarda solo al padre y la
+ * sección que agrega; las materias pendientes van en una máscara de 64 bits y el
+ * estado completo se comparte con los ancestros, así que un nodo ocupa lo mismo a
+ * cualquier profundidad. La lista de secciones se reconstruye solo para la meta.
+ */
+public final class NodoBusqueda {
+    public static final int MAXIMO_MATERIAS = Long.SIZE;
+
+    private final NodoBusqueda padre;
+    private final int idSeccion;     // sección agregada por este nodo (-1 en la raíz)
+    private final long restantes;    // bit i encendido si la materia i sigue pendiente
+    private final long hash;         // Zobrist del conjunto de secciones
+    private final int profundidad;
+    private final double costoG;
+    private final double costoH;
+
+    private NodoBusqueda(NodoBusqueda padre, int idSeccion, long restantes, long hash,
+                         int profundidad, double costoG, double costoH) {
+        this.padre = padre;
+        this.idSeccion = idSeccion;
+        this.restantes = restantes;
+        this.hash = hash;
+        this.profundidad = profundidad;
+        this.costoG = costoG;
+        this.costoH = costoH;
+    }
+
+    /** Máscara con las primeras {@code totalMaterias} materias pendientes. */
+    public static long mascaraInicial(int totalMaterias) {
+        if (totalMaterias > MAXIMO_MATERIAS) {
+            throw new IllegalArgumentException("La búsqueda admite hasta " + MAXIMO_MATERIAS
+                + " materias y se pidieron " + totalMaterias);
+        }
+        return totalMaterias == MAXIMO_MATERIAS ? -1L : (1L << totalMaterias) - 1;
+    }
+
+    public static NodoBusqueda raiz(long restantes, double costoH) {
+        return new NodoBusqueda(null, -1, restantes, 0L, 0, 0.0, costoH);
+    }
+
+    public NodoBusqueda hijo(int idSeccion, int materia, long hash, double costoG, double costoH) {
+        return new NodoBusqueda(this, idSeccion, restantes & ~(1L << materia), hash,
+                                profundidad + 1, costoG, costoH);
+    }
+
+    /** Indica si {@code id} choca con alguna sección de este estado (recorre los ancestros). */
+    public boolean chocaCon(MatrizConflictos matriz, int id) {
+        for (NodoBusqueda n = this; n.padre != null; n = n.padre) {
+            if (matriz.hayConflicto(id, n.idSeccion)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Secciones del estado en orden de asignación. */
+    public int[] secciones() {
+        int[] ids = new int[profundidad];
+        for (NodoBusqueda n = this; n.padre != null; n = n.padre) {
+            ids[n.profundidad - 1] = n.idSeccion;
+        }
+        return ids;
+    }
+
+    /** Igualdad exacta de estados (mismo conjunto de secciones), sin importar el camino. */
+    public static boolean mismoEstado(NodoBusqueda a, NodoBusqueda b) {
+        if (a.restantes != b.restantes || a.profundidad != b.profundidad) return false;
+        int[] idsA = a.secciones();
+        int[] idsB = b.secciones();
+        Arrays.sort(idsA);
+        Arrays.sort(idsB);
+        return Arrays.equals(idsA, idsB);
+    }
+
+    public boolean esMeta() { return restantes == 0L; }
+    public long obtenerRestantes() { return restantes; }
+    public long obtenerHash() { return hash; }
+    public int obtenerProfundidad() { return profundidad; }
+    public double obtenerCostoG() { return costoG; }
+    public double obtenerCostoH() { return costoH; }
+    public double costoF() { return costoG + costoH; }
+}
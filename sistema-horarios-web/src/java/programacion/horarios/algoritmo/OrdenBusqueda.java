@@ -0,0 +1,40 @@
+package programacion.horarios.algoritmo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import programacion.horarios.nucleo.RegistroIdentificadores;
+import programacion.horarios.nucleo.optimizado.DominiosConsistentes;
+
+/**
+ * Orden fijo del árbol de búsqueda exacta: las materias de menos secciones van
+ * primero (a igual número, por nombre) y en cada nivel las secciones van de mayor a
+ * menor calificación (a igual calificación, en orden de catálogo). Solo entran las
+ * secciones de los dominios consistentes. Fila i = ids de sección del nivel i.
+ */
+final class OrdenBusqueda {
+
+    private OrdenBusqueda() {
+    }
+
+    static int[][] opcionesPorNivel(RegistroIdentificadores registro, Set<String> materias,
+                                    DominiosConsistentes dominios) {
+        List<String> orden = new ArrayList<>(materias);
+        orden.sort(Comparator.<String>comparingInt(
+                m -> dominios.filtrar(registro.seccionesDeMateria(registro.idMateria(m))).length)
+            .thenComparing(Comparator.naturalOrder()));
+        int[][] opciones = new int[orden.size()][];
+        for (int nivel = 0; nivel < orden.size(); nivel++) {
+            int[] vivas = dominios.filtrar(registro.seccionesDeMateria(registro.idMateria(orden.get(nivel))));
+            opciones[nivel] = Arrays.stream(vivas)
+                .boxed()
+                .sorted(Comparator.comparingDouble((Integer id) -> registro.seccion(id).obtenerCalificacion())
+                    .reversed())
+                .mapToInt(Integer::intValue)
+                .toArray();
+        }
+        return opciones;
+    }
+}
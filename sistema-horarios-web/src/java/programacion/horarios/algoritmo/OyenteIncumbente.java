@@ -0,0 +1,10 @@
+package programacion.horarios.algoritmo;
+
+import java.util.List;
+import programacion.horarios.nucleo.Seleccion;
+
+/** Recibe cada horario que mejora al mejor conocido durante una búsqueda. */
+@FunctionalInterface
+public interface OyenteIncumbente {
+    void nuevoIncumbente(List<Seleccion> horario, double puntaje, long milisegundos);
+}
@@ -0,0 +1,14 @@
+package programacion.horarios.algoritmo;
+
+import java.util.List;
+import programacion.horarios.nucleo.Seleccion;
+
+/**
+ * Resultado de una búsqueda con presupuesto de tiempo. {@code optimoDemostrado}
+ * solo es verdadero si la búsqueda terminó sin cortarse y el horario cubre todas
+ * las materias; {@code cortadaPorTiempo} indica que se agotó el presupuesto.
+ */
+public record ResultadoBusqueda(List<Seleccion> selecciones, double puntaje,
+                                boolean optimoDemostrado, boolean cortadaPorTiempo,
+                                long milisegundos) {
+}
@@ -1,5 +1,6 @@
 package programacion.horarios.constructor;
 
+import java.util.ArrayList;
 import java.util.List;
 import programacion.horarios.nucleo.Materia;
 import programacion.horarios.nucleo.RepositorioMaterias;
@@ -21,4 +22,13 @@ public abstract class ConstructorHorario {
     protected Materia clonarAGrupo(Materia origen) {
         return origen.clonarConGrupo(nombreGrupoObjetivo);
     }
+    
+    // Las vistas al grupo objetivo se crean solo para la solución que se devuelve
+    protected List<Seleccion> materializarSelecciones(List<Materia> elegidas) {
+        List<Seleccion> resultado = new ArrayList<>(elegidas.size());
+        for (Materia elegida : elegidas) {
+            resultado.add(new Seleccion(clonarAGrupo(elegida), elegida.obtenerGrupo()));
+        }
+        return resultado;
+    }
 }
\ No newline at end of file
@@ -1,44 +1,105 @@
 package programacion.horarios.constructor;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import programacion.horarios.estrategia.EstrategiaEvaluacion;
 import programacion.horarios.estrategia.EstrategiaPonderadaPorMinutos;
 import programacion.horarios.nucleo.Materia;
 import programacion.horarios.nucleo.RepositorioMaterias;
 import programacion.horarios.nucleo.Seleccion;
+import programacion.horarios.nucleo.optimizado.DominiosConsistentes;
+import programacion.horarios.nucleo.optimizado.MatrizConflictos;
 
 public class ConstructorHorarioMaximaCobertura extends ConstructorHorario {
+    
+    /** Motor de búsqueda usado para encontrar el primer horario factible. */
+    public enum ModoBusqueda {
+        /** Retroceso clásico con orden estático de materias (menos opciones primero). */
+        RETROCESO,
+        /**
+         * Comprobación hacia adelante: cada materia pendiente mantiene su dominio vivo
+         * como conjunto de bits, se poda al elegir una sección y la siguiente materia es
+         * la de dominio más pequeño (MRV). Un dominio vacío corta la rama de inmediato.
+         */
+        COMPROBACION_ADELANTE,
+        /**
+         * Retroceso con salto dirigido por conflictos y aprendizaje de nogoods: al agotarse
+         * una materia se vuelve directo a la elección más reciente que le quitó opciones.
+         * Encuentra el mismo horario que {@link #RETROCESO}, pero sin recorrer ramas que ya
+         * se sabe que fallan; rinde sobre todo en pedidos infactibles o casi infactibles.
+         */
+        SALTO_DIRIGIDO,
+        /**
+         * {@link #SALTO_DIRIGIDO} con reinicios: cada corrida se corta al llegar a su cupo
+         * de fallos (secuencia de Luby) y la siguiente desempata al azar, desde la semilla,
+         * el orden de materias y de secciones. Los nogoods aprendidos y el mejor horario
+         * parcial alcanzado pasan de una corrida a la otra. Con la misma semilla el
+         * resultado es siempre el mismo.
+         */
+        REINICIOS
+    }
+    
+    public static final long SEMILLA_POR_DEFECTO = 0L;
+    private static final long FALLOS_POR_UNIDAD_LUBY = 64;
+    
+    private static final int MAX_NOGOODS = 10_000;      // tope de memoria por búsqueda
+    private static final int MAX_TAMANO_NOGOOD = 8;     // los más largos casi nunca vuelven a servir
+    
     private final EstrategiaEvaluacion estrategiaEvaluacion;
+    private final ModoBusqueda modo;
+    private final long semilla;
     
     public ConstructorHorarioMaximaCobertura(RepositorioMaterias repositorio, String nombreGrupoObjetivo) {
-        super(repositorio, nombreGrupoObjetivo);
-        this.estrategiaEvaluacion = new EstrategiaPonderadaPorMinutos();
+        this(repositorio, nombreGrupoObjetivo, new EstrategiaPonderadaPorMinutos());
     }
     
     public ConstructorHorarioMaximaCobertura(RepositorioMaterias repositorio, String nombreGrupoObjetivo, 
                                       EstrategiaEvaluacion estrategia) {
+        this(repositorio, nombreGrupoObjetivo, estrategia, ModoBusqueda.RETROCESO);
+    }
+    
+    public ConstructorHorarioMaximaCobertura(RepositorioMaterias repositorio, String nombreGrupoObjetivo,
+                                      EstrategiaEvaluacion estrategia, ModoBusqueda modo) {
+        this(repositorio, nombreGrupoObjetivo, estrategia, modo, SEMILLA_POR_DEFECTO);
+    }
+    
+    /** La semilla solo se usa en {@link ModoBusqueda#REINICIOS}. */
+    public ConstructorHorarioMaximaCobertura(RepositorioMaterias repositorio, String nombreGrupoObjetivo,
+                                      EstrategiaEvaluacion estrategia, ModoBusqueda modo, long semilla) {
         super(repositorio, nombreGrupoObjetivo);
         this.estrategiaEvaluacion = estrategia;
+        this.modo = modo;
+        this.semilla = semilla;
     }
     
     @Override
     public List<Seleccion> construir() {
         Set<String> materiasRequeridas = repositorio.obtenerTodosLosNombresMaterias();
         if (materiasRequeridas.isEmpty()) return List.of();
-        return construirHorarioParaMaterias(materiasRequeridas);
+        DominiosConsistentes dominios = repositorio.obtenerDominios(materiasRequeridas);
+        if (!dominios.esFactible()) return List.of(); // ningún horario las cubre todas: no se busca
+        return construirHorarioParaMaterias(materiasRequeridas, dominios);
     }
     
-    private List<Seleccion> construirHorarioParaMaterias(Set<String> materiasRequeridas) {
+    private List<Seleccion> construirHorarioParaMaterias(Set<String> materiasRequeridas,
+                                                         DominiosConsistentes dominios) {
         Map<String, List<Materia>> opciones = new HashMap<>();
         
         for (String materia : materiasRequeridas) {
-            List<Materia> opcionesMateria = repositorio.obtenerPorNombreMateria(materia);
-            opcionesMateria.sort(Comparator.reverseOrder()); // Por calificación
+            List<Materia> opcionesMateria = repositorio.obtenerPorNombreMateria(materia).stream()
+                .filter(seccion -> dominios.permite(repositorio.obtenerIdSeccion(seccion)))
+                .sorted(Comparator.reverseOrder()) // Por calificación
+                .collect(Collectors.toList());
             opciones.put(materia, opcionesMateria);
         }
         
@@ -48,7 +109,31 @@ public class ConstructorHorarioMaximaCobertura extends ConstructorHorario {
         List<Materia> elegidas = new ArrayList<>();
         List<String> gruposOrigen = new ArrayList<>();
         
-        if (retroceso(0, materiasOrdenadas, opciones, elegidas, gruposOrigen)) {
+        if (modo == ModoBusqueda.REINICIOS) {
+            return buscarConReinicios(materiasOrdenadas, opciones);
+        }
+        
+        if (modo == ModoBusqueda.SALTO_DIRIGIDO) {
+            BusquedaConSaltos busqueda = new BusquedaConSaltos(materiasOrdenadas, opciones);
+            if (busqueda.buscar(0) == BusquedaConSaltos.EXITO) {
+                return busqueda.crearResultado();
+            }
+            return List.of();
+        }
+        
+        if (modo == ModoBusqueda.COMPROBACION_ADELANTE) {
+            BusquedaAdelante busqueda = new BusquedaAdelante(materiasOrdenadas, opciones);
+            if (busqueda.buscar(0, elegidas, gruposOrigen)) {
+                return crearSelecciones(elegidas, gruposOrigen);
+            }
+            return List.of();
+        }
+        
+        // bloqueadas[i] = secciones que chocan con alguna de las primeras i elegidas
+        long[][] bloqueadas = new long[materiasOrdenadas.size() + 1]
+            [repositorio.obtenerMatrizConflictos().obtenerPalabrasPorFila()];
+        
+        if (retroceso(0, materiasOrdenadas, opciones, elegidas, gruposOrigen, bloqueadas)) {
             return crearSelecciones(elegidas, gruposOrigen);
         }
         
@@ -57,18 +142,22 @@ public class ConstructorHorarioMaximaCobertura extends ConstructorHorario {
     
     protected boolean retroceso(int indice, List<String> materias,
                              Map<String, List<Materia>> opciones,
-                             List<Materia> elegidas, List<String> gruposOrigen) {
+                             List<Materia> elegidas, List<String> gruposOrigen,
+                             long[][] bloqueadas) {
         if (indice == materias.size()) return true;
         
+        MatrizConflictos matriz = repositorio.obtenerMatrizConflictos();
         String materiaActual = materias.get(indice);
         List<Materia> opcionesMateria = opciones.get(materiaActual);
         
         for (Materia candidata : opcionesMateria) {
-            if (!tieneConflicto(candidata, elegidas)) {
+            int id = repositorio.obtenerIdSeccion(candidata);
+            if (!MatrizConflictos.contiene(bloqueadas[indice], id)) {
                 elegidas.add(candidata);
                 gruposOrigen.add(candidata.obtenerGrupo());
+                matriz.acumularFila(id, bloqueadas[indice], bloqueadas[indice + 1]);
                 
-                if (retroceso(indice + 1, materias, opciones, elegidas, gruposOrigen)) {
+                if (retroceso(indice + 1, materias, opciones, elegidas, gruposOrigen, bloqueadas)) {
                     return true;
                 }
                 
@@ -80,13 +169,287 @@ public class ConstructorHorarioMaximaCobertura extends ConstructorHorario {
         return false;
     }
     
-    private boolean tieneConflicto(Materia candidata, List<Materia> elegidas) {
-        for (Materia m : elegidas) {
-            if (m.tieneConflictoCon(candidata)) {
+    /**
+     * Estado de la comprobación hacia adelante. Los dominios se guardan por nivel
+     * ({@code dominios[nivel][materia]}) para deshacer una elección sin copiar nada:
+     * al volver basta con seguir leyendo el nivel anterior.
+     */
+    private final class BusquedaAdelante {
+        private final MatrizConflictos matriz = repositorio.obtenerMatrizConflictos();
+        private final List<List<Materia>> opciones = new ArrayList<>();
+        private final int[][] idsOpciones;
+        private final long[][][] dominios;
+        private final int[][] tamanos;
+        private final boolean[] asignada;
+        
+        BusquedaAdelante(List<String> materias, Map<String, List<Materia>> opcionesPorMateria) {
+            int total = materias.size();
+            int palabras = matriz.obtenerPalabrasPorFila();
+            this.idsOpciones = new int[total][];
+            this.dominios = new long[total + 1][total][palabras];
+            this.tamanos = new int[total + 1][total];
+            this.asignada = new boolean[total];
+            
+            for (int m = 0; m < total; m++) {
+                List<Materia> lista = opcionesPorMateria.get(materias.get(m));
+                opciones.add(lista);
+                idsOpciones[m] = new int[lista.size()];
+                for (int k = 0; k < lista.size(); k++) {
+                    int id = repositorio.obtenerIdSeccion(lista.get(k));
+                    idsOpciones[m][k] = id;
+                    if (!MatrizConflictos.contiene(dominios[0][m], id)) {
+                        MatrizConflictos.agregar(dominios[0][m], id);
+                        tamanos[0][m]++;
+                    }
+                }
+            }
+        }
+        
+        boolean buscar(int nivel, List<Materia> elegidas, List<String> gruposOrigen) {
+            int materia = elegirMateriaMRV(nivel);
+            if (materia < 0) return true;
+            if (tamanos[nivel][materia] == 0) return false;
+            
+            asignada[materia] = true;
+            List<Materia> lista = opciones.get(materia);
+            for (int k = 0; k < lista.size(); k++) {
+                int id = idsOpciones[materia][k];
+                if (!MatrizConflictos.contiene(dominios[nivel][materia], id)) continue;
+                if (!propagar(nivel, id)) continue;
+                
+                Materia candidata = lista.get(k);
+                elegidas.add(candidata);
+                gruposOrigen.add(candidata.obtenerGrupo());
+                if (buscar(nivel + 1, elegidas, gruposOrigen)) {
+                    return true;
+                }
+                elegidas.remove(elegidas.size() - 1);
+                gruposOrigen.remove(gruposOrigen.size() - 1);
+            }
+            asignada[materia] = false;
+            return false;
+        }
+        
+        // Materia pendiente con el dominio vivo más pequeño; -1 si ya no queda ninguna
+        private int elegirMateriaMRV(int nivel) {
+            int mejor = -1;
+            for (int m = 0; m < asignada.length; m++) {
+                if (!asignada[m] && (mejor < 0 || tamanos[nivel][m] < tamanos[nivel][mejor])) {
+                    mejor = m;
+                }
+            }
+            return mejor;
+        }
+        
+        // Copia al nivel siguiente los dominios pendientes sin las secciones que chocan con id
+        private boolean propagar(int nivel, int id) {
+            for (int m = 0; m < asignada.length; m++) {
+                if (asignada[m]) continue;
+                long[] destino = dominios[nivel + 1][m];
+                System.arraycopy(dominios[nivel][m], 0, destino, 0, destino.length);
+                matriz.filtrarCompatibles(id, destino);
+                int tamano = 0;
+                for (long palabra : destino) {
+                    tamano += Long.bitCount(palabra);
+                }
+                if (tamano == 0) return false; // dominio vacío: la rama no tiene salida
+                tamanos[nivel + 1][m] = tamano;
+            }
+            return true;
+        }
+    }
+    
+    private List<Seleccion> buscarConReinicios(List<String> materias, Map<String, List<Materia>> opciones) {
+        Random azar = new Random(semilla);
+        BusquedaConSaltos busqueda = new BusquedaConSaltos(materias, opciones);
+        for (int corrida = 1; ; corrida++) {
+            busqueda.reordenar(desempatar(materias, Comparator.comparingInt(m -> opciones.get(m).size()), azar),
+                materia -> desempatar(opciones.get(materia),
+                    Comparator.comparing((Materia seccion) -> !busqueda.esDelIncumbente(seccion))
+                        .thenComparing(Comparator.reverseOrder()),
+                    azar));
+            busqueda.limitarFallos(luby(corrida) * FALLOS_POR_UNIDAD_LUBY);
+            int resultado = busqueda.buscar(0);
+            if (resultado == BusquedaConSaltos.EXITO) return busqueda.crearResultado();
+            if (resultado != BusquedaConSaltos.CORTE) return List.of(); // se demostró que no hay horario
+        }
+    }
+    
+    // Orden estable sobre una copia barajada: los empates quedan en orden aleatorio
+    private static <T> List<T> desempatar(List<T> elementos, Comparator<T> orden, Random azar) {
+        List<T> barajados = new ArrayList<>(elementos);
+        Collections.shuffle(barajados, azar);
+        barajados.sort(orden);
+        return barajados;
+    }
+    
+    /** Término i (desde 1) de la secuencia de Luby: 1, 1, 2, 1, 1, 2, 4, 1, 1, 2, ... */
+    static long luby(int i) {
+        while (true) {
+            int k = 1;
+            while ((1L << k) - 1 < i) k++;
+            if ((1L << k) - 1 == i) return 1L << (k - 1);
+            i -= (1 << (k - 1)) - 1;
+        }
+    }
+    
+    /**
+     * Estado del salto dirigido por conflictos (CBJ). {@code culpables[n]} son los niveles
+     * anteriores que le quitaron opciones al nivel n; al agotarse, n aprende un nogood con
+     * sus secciones, le hereda sus culpables al más reciente y vuelve directo a él. Los
+     * nogoods se indexan por cada sección que contienen y se revisan al elegir cualquiera.
+     * <p>
+     * Un nogood no depende del orden de los niveles, así que sigue valiendo tras
+     * {@link #reordenar}; también se conserva el horario parcial más profundo alcanzado.
+     */
+    private final class BusquedaConSaltos {
+        static final int EXITO = Integer.MAX_VALUE;
+        static final int CORTE = Integer.MIN_VALUE; // se agotó el cupo de fallos de la corrida
+        
+        private final MatrizConflictos matriz = repositorio.obtenerMatrizConflictos();
+        private final List<List<Materia>> opciones = new ArrayList<>();
+        private final int[][] ids;
+        private final int[] elegido;          // sección elegida en cada nivel
+        private final int[] posicionElegida;  // y su posición en las opciones del nivel
+        private final int[] nivelDeSeccion;   // nivel donde está elegida cada sección; -1 si no lo está
+        private final BitSet[] culpables;
+        private final Map<Integer, List<int[]>> nogoodsPorSeccion = new HashMap<>();
+        private int totalNogoods;
+        private final boolean[] incumbente;   // secciones del horario parcial más profundo
+        private int profundidadIncumbente;
+        private long limiteFallos = Long.MAX_VALUE;
+        private long fallos;
+        
+        BusquedaConSaltos(List<String> materias, Map<String, List<Materia>> opcionesPorMateria) {
+            int total = materias.size();
+            this.ids = new int[total][];
+            this.elegido = new int[total];
+            this.posicionElegida = new int[total];
+            this.culpables = new BitSet[total];
+            this.nivelDeSeccion = new int[repositorio.obtenerTotalSecciones()];
+            this.incumbente = new boolean[nivelDeSeccion.length];
+            for (int n = 0; n < total; n++) {
+                culpables[n] = new BitSet(total);
+            }
+            reordenar(materias, opcionesPorMateria::get);
+        }
+        
+        /** Deja la búsqueda lista para empezar de cero con otro orden; lo aprendido se queda. */
+        void reordenar(List<String> materias, Function<String, List<Materia>> opcionesPorMateria) {
+            opciones.clear();
+            for (int n = 0; n < materias.size(); n++) {
+                List<Materia> lista = opcionesPorMateria.apply(materias.get(n));
+                opciones.add(lista);
+                ids[n] = lista.stream().mapToInt(repositorio::obtenerIdSeccion).toArray();
+            }
+            Arrays.fill(nivelDeSeccion, -1);
+            fallos = 0;
+        }
+        
+        void limitarFallos(long limite) {
+            this.limiteFallos = limite;
+        }
+        
+        boolean esDelIncumbente(Materia seccion) {
+            return incumbente[repositorio.obtenerIdSeccion(seccion)];
+        }
+        
+        /**
+         * {@link #EXITO} si completó el horario, {@link #CORTE} si se acabó el cupo de fallos;
+         * si no, el nivel al que hay que volver (-1: no hay horario).
+         */
+        int buscar(int nivel) {
+            if (nivel > profundidadIncumbente) guardarIncumbente(nivel);
+            if (nivel == ids.length) return EXITO;
+            BitSet conflicto = culpables[nivel];
+            conflicto.clear();
+            for (int k = 0; k < ids[nivel].length; k++) {
+                int id = ids[nivel][k];
+                int choque = primerChoque(nivel, id);
+                if (choque >= 0) {
+                    conflicto.set(choque);
+                    continue;
+                }
+                if (violaNogood(id, conflicto)) continue;
+                
+                elegido[nivel] = id;
+                posicionElegida[nivel] = k;
+                nivelDeSeccion[id] = nivel;
+                int destino = buscar(nivel + 1);
+                if (destino == EXITO) return EXITO;
+                nivelDeSeccion[id] = -1;
+                if (destino < nivel) return destino; // el culpable está más arriba (o hubo corte)
+            }
+            return fallar(conflicto);
+        }
+        
+        private void guardarIncumbente(int nivel) {
+            Arrays.fill(incumbente, false);
+            for (int n = 0; n < nivel; n++) {
+                incumbente[elegido[n]] = true;
+            }
+            profundidadIncumbente = nivel;
+        }
+        
+        // Nivel anterior más temprano cuya elección choca con id; -1 si ninguna
+        private int primerChoque(int nivel, int id) {
+            for (int anterior = 0; anterior < nivel; anterior++) {
+                if (matriz.hayConflicto(elegido[anterior], id)) return anterior;
+            }
+            return -1;
+        }
+        
+        // Si id completa un nogood, sus otras secciones explican el rechazo
+        private boolean violaNogood(int id, BitSet conflicto) {
+            for (int[] nogood : nogoodsPorSeccion.getOrDefault(id, List.of())) {
+                boolean completo = true;
+                for (int otra : nogood) {
+                    if (otra != id && nivelDeSeccion[otra] < 0) {
+                        completo = false;
+                        break;
+                    }
+                }
+                if (!completo) continue;
+                for (int otra : nogood) {
+                    if (otra != id) conflicto.set(nivelDeSeccion[otra]);
+                }
                 return true;
             }
+            return false;
+        }
+        
+        private int fallar(BitSet conflicto) {
+            aprender(conflicto);
+            int destino = conflicto.length() - 1; // culpable más reciente
+            if (destino >= 0) {
+                culpables[destino].or(conflicto);
+                culpables[destino].clear(destino);
+            }
+            if (destino >= 0 && ++fallos > limiteFallos) return CORTE;
+            return destino;
+        }
+        
+        // Las secciones de los niveles culpables juntas no admiten horario completo
+        private void aprender(BitSet conflicto) {
+            int tamano = conflicto.cardinality();
+            if (tamano == 0 || tamano > MAX_TAMANO_NOGOOD || totalNogoods >= MAX_NOGOODS) return;
+            int[] nogood = conflicto.stream().map(n -> elegido[n]).toArray();
+            for (int id : nogood) {
+                nogoodsPorSeccion.computeIfAbsent(id, k -> new ArrayList<>()).add(nogood);
+            }
+            totalNogoods++;
+        }
+        
+        List<Seleccion> crearResultado() {
+            List<Materia> elegidas = new ArrayList<>(ids.length);
+            List<String> gruposOrigen = new ArrayList<>(ids.length);
+            for (int n = 0; n < ids.length; n++) {
+                Materia seccion = opciones.get(n).get(posicionElegida[n]);
+                elegidas.add(seccion);
+                gruposOrigen.add(seccion.obtenerGrupo());
+            }
+            return crearSelecciones(elegidas, gruposOrigen);
         }
-        return false;
     }
     
     protected List<Seleccion> crearSelecciones(List<Materia> elegidas, List<String> gruposOrigen) {
@@ -103,7 +466,7 @@ public class ConstructorHorarioMaximaCobertura extends ConstructorHorario {
         // Validar que no hay conflictos
         for (int i = 0; i < seleccionadas.size(); i++) {
             for (int j = i + 1; j < seleccionadas.size(); j++) {
-                if (seleccionadas.get(i).tieneConflictoCon(seleccionadas.get(j))) {
+                if (repositorio.hayConflicto(seleccionadas.get(i), seleccionadas.get(j))) {
                     return false;
                 }
             }
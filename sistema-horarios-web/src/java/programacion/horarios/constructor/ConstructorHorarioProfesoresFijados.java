@@ -1,19 +1,24 @@
 package programacion.horarios.constructor;
 
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import programacion.horarios.algoritmo.FronteraAcotada;
+import programacion.horarios.algoritmo.NodoBusqueda;
 import programacion.horarios.constructor.ConstructorHorario;
 import programacion.horarios.nucleo.Materia;
+import programacion.horarios.nucleo.RegistroIdentificadores;
 import programacion.horarios.nucleo.RepositorioMaterias;
 import programacion.horarios.nucleo.Seleccion;
+import programacion.horarios.nucleo.optimizado.ConjuntoHashLargo;
+import programacion.horarios.nucleo.optimizado.DominiosConsistentes;
+import programacion.horarios.nucleo.optimizado.MatrizConflictos;
+import programacion.horarios.nucleo.optimizado.TablaZobrist;
 
 public class ConstructorHorarioProfesoresFijados extends ConstructorHorario {
 
@@ -25,21 +30,13 @@ public class ConstructorHorarioProfesoresFijados extends ConstructorHorario {
     /* ======= (Opcional) limitar materias objetivo explícitamente ======= */
     private final Set<String> materiasObjetivoExplicitas; // puede ser null
 
-    /* ======= Estado A* ======= */
-    private static class NodoEstado {
-        final List<Seleccion> asignadas;          // asignaciones ya tomadas
-        final Set<String> materiasRestantes;      // nombres de materia faltantes
-        final double costoG;                      // costo acumulado (sum(10 - calif))
-        final double costoH;                      // heurística optimista
-
-        NodoEstado(List<Seleccion> asignadas, Set<String> restantes, double g, double h) {
-            this.asignadas = asignadas;
-            this.materiasRestantes = restantes;
-            this.costoG = g;
-            this.costoH = h;
-        }
-        double costoF() { return costoG + costoH; }
-    }
+    /* ======= Presupuesto de nodos abiertos (FronteraAcotada.SIN_LIMITE = A* exacto) ======= */
+    private final int presupuestoNodos;
+    private long nodosDescartados;
+
+    /* ======= Por búsqueda: materias objetivo (índice = bit de la máscara) y sus candidatas ======= */
+    private List<String> materias;
+    private int[][] candidatasPorMateria; // ids de sección con el profesor fijado ya aplicado
 
     /* ======================== Constructores ======================== */
 
@@ -47,13 +44,7 @@ public class ConstructorHorarioProfesoresFijados extends ConstructorHorario {
     public ConstructorHorarioProfesoresFijados(RepositorioMaterias repositorio,
                                                     String nombreGrupoObjetivo,
                                                     Map<String, String> profesoresFijados) {
-        super(repositorio, nombreGrupoObjetivo);
-        this.profesoresFijados = (profesoresFijados != null) ? profesoresFijados : Map.of();
-        this.materiasObjetivoExplicitas = null;
-        if (DEBUG) {
-            System.out.println("🔧 A* con profesores fijados:");
-            this.profesoresFijados.forEach((m,p) -> System.out.println("  " + m + " -> " + p));
-        }
+        this(repositorio, nombreGrupoObjetivo, profesoresFijados, null);
     }
 
     /** A* con profesores fijados y un conjunto explícito de materias objetivo. */
@@ -61,11 +52,25 @@ public class ConstructorHorarioProfesoresFijados extends ConstructorHorario {
                                                     String nombreGrupoObjetivo,
                                                     Map<String, String> profesoresFijados,
                                                     Set<String> materiasObjetivo) {
+        this(repositorio, nombreGrupoObjetivo, profesoresFijados, materiasObjetivo, FronteraAcotada.SIN_LIMITE);
+    }
+
+    /**
+     * Variante con memoria acotada: la lista abierta guarda a lo más {@code presupuestoNodos}
+     * nodos y, si llega a descartar, se devuelve el mejor horario completo visto.
+     * {@code materiasObjetivo} puede ser null (mejor grupo por cobertura).
+     */
+    public ConstructorHorarioProfesoresFijados(RepositorioMaterias repositorio,
+                                                    String nombreGrupoObjetivo,
+                                                    Map<String, String> profesoresFijados,
+                                                    Set<String> materiasObjetivo,
+                                                    int presupuestoNodos) {
         super(repositorio, nombreGrupoObjetivo);
         this.profesoresFijados = (profesoresFijados != null) ? profesoresFijados : Map.of();
         this.materiasObjetivoExplicitas = (materiasObjetivo != null) ? new HashSet<>(materiasObjetivo) : null;
+        this.presupuestoNodos = presupuestoNodos;
         if (DEBUG) {
-            System.out.println("🔧 A* con profesores fijados + materias explícitas:");
+            System.out.println("🔧 A* con profesores fijados:");
             this.profesoresFijados.forEach((m,p) -> System.out.println("  " + m + " -> " + p));
             System.out.println("  Materias objetivo: " + this.materiasObjetivoExplicitas);
         }
@@ -90,7 +95,13 @@ public class ConstructorHorarioProfesoresFijados extends ConstructorHorario {
         // Aseguramos que las materias con profesor fijado estén incluidas
         materiasObjetivo.addAll(profesoresFijados.keySet());
 
-        return buscarConAStar(materiasObjetivo);
+        materias = new ArrayList<>(materiasObjetivo);
+        long todas = NodoBusqueda.mascaraInicial(materias.size());
+        // Los dominios no saben de profesores fijados, pero lo que podan tampoco cabe con ellos
+        DominiosConsistentes dominios = repositorio.obtenerDominios(materiasObjetivo);
+        if (!dominios.esFactible()) return List.of();
+        candidatasPorMateria = calcularCandidatas(materias, dominios);
+        return buscarConAStar(todas);
     }
 
     @Override
@@ -100,85 +111,130 @@ public class ConstructorHorarioProfesoresFijados extends ConstructorHorario {
 
     /* ======================== Núcleo A* ======================== */
 
-    private List<Seleccion> buscarConAStar(Set<String> materiasRequeridas) {
-        PriorityQueue<NodoEstado> open = new PriorityQueue<>(Comparator.comparingDouble(NodoEstado::costoF));
-
-        NodoEstado inicial = new NodoEstado(
-                new ArrayList<>(),
-                new HashSet<>(materiasRequeridas),
-                0.0,
-                calcularHeuristica(materiasRequeridas, List.of())
-        );
-        open.offer(inicial);
+    private List<Seleccion> buscarConAStar(long todas) {
+        FronteraAcotada open = new FronteraAcotada(presupuestoNodos);
+        NodoBusqueda raiz = NodoBusqueda.raiz(todas, 0.0);
+        open.agregar(NodoBusqueda.raiz(todas, calcularHeuristica(todas, raiz, -1)));
 
-        // Para evitar expandir estados equivalentes repetidos
-        Set<String> cerrados = new HashSet<>();
+        // Para evitar expandir estados equivalentes repetidos (en el modo acotado no se
+        // guardan: la materia MRV depende solo del estado, así que cada estado tiene un único camino)
+        ConjuntoHashLargo<NodoBusqueda> cerrados = presupuestoNodos == FronteraAcotada.SIN_LIMITE
+                ? new ConjuntoHashLargo<>(NodoBusqueda::mismoEstado) : null;
+        NodoBusqueda mejorCompleto = null; // mejor meta vista, por si el presupuesto la descarta
+        MatrizConflictos matriz = repositorio.obtenerMatrizConflictos();
+        TablaZobrist zobrist = repositorio.obtenerTablaZobrist();
 
-        while (!open.isEmpty()) {
-            NodoEstado actual = open.poll();
+        while (!open.estaVacia()) {
+            NodoBusqueda actual = open.extraer();
 
-            if (actual.materiasRestantes.isEmpty()) {
+            if (actual.esMeta()) {
                 if (DEBUG) System.out.println("🎉 Objetivo alcanzado. Costo=" + actual.costoF());
-                return actual.asignadas;
+                mejorCompleto = mejorMeta(mejorCompleto, actual);
+                break;
             }
 
-            String clave = claveEstado(actual.asignadas);
-            if (cerrados.contains(clave)) continue;
-            cerrados.add(clave);
+            if (cerrados != null && !cerrados.agregar(actual.obtenerHash(), actual)) continue;
 
             // Elegir la siguiente materia por MRV (la de menos opciones válidas)
-            String proxima = seleccionarMateriaMRV(actual.materiasRestantes, actual.asignadas);
+            int proxima = seleccionarMateriaMRV(actual);
+            long nuevasRestantes = actual.obtenerRestantes() & ~(1L << proxima);
 
             // Expandir sucesores (opciones compatibles)
-            for (Materia opcion : opcionesMateriaFiltradas(proxima, actual.asignadas)) {
-                List<Seleccion> nuevasAsignadas = new ArrayList<>(actual.asignadas);
-                nuevasAsignadas.add(new Seleccion(clonarAGrupo(opcion), opcion.obtenerGrupo()));
+            for (int id : candidatasPorMateria[proxima]) {
+                if (actual.chocaCon(matriz, id)) continue;
+                double g = actual.obtenerCostoG() + (10.0 - repositorio.obtenerSeccion(id).obtenerCalificacion());
+                double h = calcularHeuristica(nuevasRestantes, actual, id);
+                NodoBusqueda sucesor = actual.hijo(id, proxima, zobrist.alternar(actual.obtenerHash(), id), g, h);
+                if (sucesor.esMeta()) mejorCompleto = mejorMeta(mejorCompleto, sucesor);
+                open.agregar(sucesor);
+            }
+        }
+
+        nodosDescartados = open.obtenerDescartados();
+        if (mejorCompleto == null) return List.of(); // sin solución
+        return materializarSelecciones(reconstruir(mejorCompleto));
+    }
 
-                Set<String> nuevasRestantes = new HashSet<>(actual.materiasRestantes);
-                nuevasRestantes.remove(proxima);
+    private static NodoBusqueda mejorMeta(NodoBusqueda actual, NodoBusqueda candidata) {
+        return actual == null || candidata.obtenerCostoG() < actual.obtenerCostoG() ? candidata : actual;
+    }
 
-                double g = actual.costoG + (10.0 - opcion.obtenerCalificacion());
-                double h = calcularHeuristica(nuevasRestantes, nuevasAsignadas);
+    /** Nodos que la última búsqueda descartó por el presupuesto (cero: resultado óptimo). */
+    public long obtenerNodosDescartados() {
+        return nodosDescartados;
+    }
 
-                open.offer(new NodoEstado(nuevasAsignadas, nuevasRestantes, g, h));
-            }
+    private List<Materia> reconstruir(NodoBusqueda meta) {
+        List<Materia> asignadas = new ArrayList<>();
+        for (int id : meta.secciones()) {
+            asignadas.add(repositorio.obtenerSeccion(id));
         }
-        return List.of(); // sin solución
+        return asignadas;
     }
 
     /* ======================== Heurística y Sucesores ======================== */
 
-    /** Selecciona la materia con menos opciones válidas (MRV). */
-    private String seleccionarMateriaMRV(Set<String> materiasRestantes, List<Seleccion> asignadas) {
-        return materiasRestantes.stream()
-                .min(Comparator.comparingInt(m -> opcionesMateriaFiltradas(m, asignadas).size()))
-                .orElseGet(() -> materiasRestantes.iterator().next());
+    /** Selecciona la materia pendiente con menos opciones válidas (MRV). */
+    private int seleccionarMateriaMRV(NodoBusqueda estado) {
+        int mejor = -1;
+        int menosOpciones = Integer.MAX_VALUE;
+        for (long r = estado.obtenerRestantes(); r != 0; r &= r - 1) {
+            int m = Long.numberOfTrailingZeros(r);
+            int validas = 0;
+            for (int id : candidatasPorMateria[m]) {
+                if (esCompatible(id, estado)) validas++;
+            }
+            if (validas < menosOpciones) {
+                menosOpciones = validas;
+                mejor = m;
+            }
+        }
+        return mejor;
     }
 
-    /** Opciones válidas para una materia: respeta profesor fijado y compatibilidad de horarios. */
-    private List<Materia> opcionesMateriaFiltradas(String materia, List<Seleccion> asignadas) {
-        List<Materia> candidatas = repositorio.obtenerPorNombreMateria(materia);
-        // Si profesor está fijado, filtrar por nombre (igualdad flexible)
-        if (profesoresFijados.containsKey(materia)) {
+    /**
+     * Secciones de cada materia que respetan el profesor fijado y siguen en los dominios
+     * consistentes. La comparación flexible de nombres se hace una vez por profesor del
+     * catálogo y no por nodo.
+     */
+    private int[][] calcularCandidatas(List<String> materias, DominiosConsistentes dominios) {
+        RegistroIdentificadores registro = repositorio.obtenerRegistro();
+        int[][] resultado = new int[materias.size()][];
+        for (int m = 0; m < materias.size(); m++) {
+            String materia = materias.get(m);
+            List<Materia> candidatas = repositorio.obtenerPorNombreMateria(materia);
             String requerido = profesoresFijados.get(materia);
-            candidatas = candidatas.stream()
-                    .filter(m -> equalsNombre(m.obtenerProfesor().obtenerNombreCompleto(), requerido))
-                    .collect(Collectors.toList());
+            if (requerido != null) {
+                BitSet profesoresValidos = new BitSet();
+                for (int p = 0; p < registro.totalProfesores(); p++) {
+                    if (equalsNombre(registro.profesor(p).obtenerNombreCompleto(), requerido)) {
+                        profesoresValidos.set(p);
+                    }
+                }
+                candidatas = candidatas.stream()
+                        .filter(c -> profesoresValidos.get(
+                                registro.profesorDeSeccion(registro.idSeccion(c))))
+                        .collect(Collectors.toList());
+            }
+            resultado[m] = candidatas.stream().mapToInt(registro::idSeccion).filter(dominios::permite).toArray();
         }
-        // Compatibilidad horaria con lo ya asignado
-        return candidatas.stream()
-                .filter(op -> esCompatible(op, asignadas))
-                .collect(Collectors.toList());
+        return resultado;
     }
 
-    /** Heurística: suma de (10 - mejorCalifPosible) por materia restante, bajo restricciones actuales. */
-    private double calcularHeuristica(Set<String> restantes, List<Seleccion> asignadas) {
+    /**
+     * Heurística: suma de (10 - mejorCalifPosible) por materia restante, bajo restricciones
+     * actuales: las secciones de {@code estado} más {@code idNuevo} (si no es -1).
+     */
+    private double calcularHeuristica(long restantes, NodoBusqueda estado, int idNuevo) {
+        MatrizConflictos matriz = repositorio.obtenerMatrizConflictos();
         double h = 0.0;
-        for (String m : restantes) {
-            double mejor = opcionesMateriaFiltradas(m, asignadas).stream()
-                    .mapToDouble(Materia::obtenerCalificacion)
-                    .max()
-                    .orElse(0.0);
+        for (long r = restantes; r != 0; r &= r - 1) {
+            double mejor = 0.0;
+            for (int id : candidatasPorMateria[Long.numberOfTrailingZeros(r)]) {
+                if ((idNuevo < 0 || !matriz.hayConflicto(id, idNuevo)) && esCompatible(id, estado)) {
+                    mejor = Math.max(mejor, repositorio.obtenerSeccion(id).obtenerCalificacion());
+                }
+            }
             h += (10.0 - mejor);
         }
         return h;
@@ -186,18 +242,8 @@ public class ConstructorHorarioProfesoresFijados extends ConstructorHorario {
 
     /* ======================== Utilidades ======================== */
 
-    private boolean esCompatible(Materia nueva, List<Seleccion> asignadas) {
-        for (Seleccion sel : asignadas) {
-            if (nueva.tieneConflictoCon(sel.asignada())) return false;
-        }
-        return true;
-    }
-
-    private String claveEstado(List<Seleccion> asignadas) {
-        return asignadas.stream()
-                .map(sel -> sel.asignada().obtenerIdentificador())
-                .sorted()
-                .collect(Collectors.joining("|"));
+    private boolean esCompatible(int id, NodoBusqueda estado) {
+        return !estado.chocaCon(repositorio.obtenerMatrizConflictos(), id);
     }
 
     /** Igualdad flexible de nombres de profesor (normaliza acentos y espacios). */
@@ -2,10 +2,8 @@ package programacion.horarios.constructor.optimizado;
 
 import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 import programacion.horarios.constructor.ConstructorHorario;
@@ -14,14 +12,12 @@ import programacion.horarios.estrategia.EstrategiaPonderadaPorMinutos;
 import programacion.horarios.nucleo.Materia;
 import programacion.horarios.nucleo.RepositorioMaterias;
 import programacion.horarios.nucleo.Seleccion;
+import programacion.horarios.nucleo.optimizado.DominiosConsistentes;
+import programacion.horarios.nucleo.optimizado.IndiceHorarios;
 
 public class ConstructorHorarioOptimizado extends ConstructorHorario {
     private final EstrategiaEvaluacion estrategia;
     
-    // Cachés para evitar recálculos
-    private final Map<String, Double> cacheEvaluaciones = new HashMap<>();
-    private final Map<String, Boolean> cacheConflictos = new HashMap<>();
-    
     public ConstructorHorarioOptimizado(RepositorioMaterias repositorio, 
                                        String nombreGrupoObjetivo) {
         super(repositorio, nombreGrupoObjetivo);
@@ -33,24 +29,27 @@ public class ConstructorHorarioOptimizado extends ConstructorHorario {
         Set<String> materiasRequeridas = repositorio.obtenerTodosLosNombresMaterias();
         if (materiasRequeridas.isEmpty()) return List.of();
 
-        return construirConHeuristicas(materiasRequeridas);
+        return construirConHeuristicas(materiasRequeridas, repositorio.obtenerDominios(materiasRequeridas));
     }
     
     // Algoritmo greedy: O(n log n) en lugar de O(n!)
-    private List<Seleccion> construirConHeuristicas(Set<String> materiasRequeridas) {
+    private List<Seleccion> construirConHeuristicas(Set<String> materiasRequeridas,
+                                                    DominiosConsistentes dominios) {
         List<Seleccion> resultado = new ArrayList<>();
         Set<String> materiasAsignadas = new HashSet<>();
+        IndiceHorarios ocupacion = new IndiceHorarios();
         
         // 1. Ordenar materias por dificultad de asignación (menos opciones primero)
         List<String> materiasOrdenadas = materiasRequeridas.stream()
-            .sorted(Comparator.comparingInt(this::contarOpciones))
+            .sorted(Comparator.comparingInt(materia -> obtenerOpciones(materia, dominios).size()))
             .collect(Collectors.toList());
         
         // 2. Para cada materia, elegir la mejor opción válida
         for (String materia : materiasOrdenadas) {
-            Seleccion mejorSeleccion = encontrarMejorOpcion(materia, resultado);
-            if (mejorSeleccion != null) {
-                resultado.add(mejorSeleccion);
+            Materia mejorOpcion = encontrarMejorOpcion(obtenerOpciones(materia, dominios), ocupacion);
+            if (mejorOpcion != null) {
+                ocupacion.agregarMateria(mejorOpcion);
+                resultado.add(new Seleccion(clonarAGrupo(mejorOpcion), mejorOpcion.obtenerGrupo()));
                 materiasAsignadas.add(materia);
             }
         }
@@ -59,45 +58,21 @@ public class ConstructorHorarioOptimizado extends ConstructorHorario {
     }
     
     // Encuentra la mejor opción para una materia sin conflictos
-    private Seleccion encontrarMejorOpcion(String nombreMateria, 
-                                          List<Seleccion> asignadas) {
-        List<Materia> opciones = repositorio.obtenerPorNombreMateria(nombreMateria);
-        
+    private Materia encontrarMejorOpcion(List<Materia> opciones, IndiceHorarios ocupacion) {
         return opciones.stream()
-            .filter(materia -> !tieneConflictoRapido(materia, asignadas))
+            .filter(materia -> !ocupacion.tieneConflicto(materia))
             .max(Comparator.comparingDouble(Materia::obtenerCalificacion))
-            .map(materia -> new Seleccion(
-                clonarAGrupo(materia), 
-                materia.obtenerGrupo()
-            ))
             .orElse(null);
     }
     
-    // Optimización: Verificación rápida de conflictos usando índices
-    private boolean tieneConflictoRapido(Materia nueva, List<Seleccion> asignadas) {
-        String claveCache = generarClaveConflicto(nueva, asignadas);
-        
-        return cacheConflictos.computeIfAbsent(claveCache, k -> {
-            for (Seleccion sel : asignadas) {
-                if (nueva.tieneConflictoCon(sel.asignada())) {
-                    return true;
-                }
-            }
-            return false;
-        });
-    }
-    
-    private String generarClaveConflicto(Materia nueva, List<Seleccion> asignadas) {
-        StringBuilder sb = new StringBuilder();
-        sb.append(nueva.obtenerIdentificador());
-        for (Seleccion sel : asignadas) {
-            sb.append("|").append(sel.asignada().obtenerIdentificador());
-        }
-        return sb.toString();
-    }
-    
-    private int contarOpciones(String nombreMateria) {
-        return repositorio.obtenerPorNombreMateria(nombreMateria).size();
+    // Si hay horario completo solo se ofrecen secciones que caben en alguno; si no, todas,
+    // porque el voraz igual entrega un horario parcial
+    private List<Materia> obtenerOpciones(String nombreMateria, DominiosConsistentes dominios) {
+        List<Materia> opciones = repositorio.obtenerPorNombreMateria(nombreMateria);
+        if (!dominios.esFactible()) return opciones;
+        return opciones.stream()
+            .filter(materia -> dominios.permite(repositorio.obtenerIdSeccion(materia)))
+            .collect(Collectors.toList());
     }
     
     @Override
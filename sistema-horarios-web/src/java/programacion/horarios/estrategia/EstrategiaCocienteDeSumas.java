@@ -0,0 +1,13 @@
+package programacion.horarios.estrategia;
+
+import programacion.horarios.nucleo.Materia;
+
+/**
+ * Estrategia cuyo puntaje es un cociente de sumas, Σ numerador(m) / Σ denominador(m)
+ * (cero si el denominador suma cero). Así la búsqueda local puede actualizar el puntaje
+ * en O(1) al cambiar una sección, y la búsqueda por componentes puede repartirlo.
+ */
+public interface EstrategiaCocienteDeSumas extends EstrategiaEvaluacion {
+    double numerador(Materia materia);
+    double denominador(Materia materia);
+}
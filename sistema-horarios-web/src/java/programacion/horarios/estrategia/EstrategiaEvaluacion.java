@@ -6,5 +6,26 @@ import programacion.horarios.nucleo.Materia;
 public interface EstrategiaEvaluacion {
     double evaluar(List<Materia> materias);
     String obtenerNombreEstrategia();
+    
+    /**
+     * Cota optimista del puntaje de cualquier horario completo que extienda
+     * {@code asignadas} con una sección por cada materia pendiente. En
+     * {@code mejoresRestantes} llega, por cada materia pendiente, su sección de mayor
+     * calificación todavía compatible. La ramificación y acotación poda una rama
+     * cuando esta cota no supera al mejor horario ya encontrado, así que nunca debe
+     * subestimar. Sin más información no se puede acotar nada.
+     */
+    default double cotaSuperior(List<Materia> asignadas, List<Materia> mejoresRestantes) {
+        return Double.POSITIVE_INFINITY;
+    }
+    
+    /**
+     * Indica si cambiar {@code peor} por {@code mejor} (misma materia) en cualquier horario
+     * nunca baja el puntaje. La reducción de secciones solo descarta una sección cuando
+     * otra que choca con menos la puede sustituir. Sin más información, ninguna.
+     */
+    default boolean puedeSustituir(Materia mejor, Materia peor) {
+        return false;
+    }
 }
 
@@ -3,7 +3,7 @@ package programacion.horarios.estrategia;
 import java.util.List;
 import programacion.horarios.nucleo.Materia;
 
-public class EstrategiaMediaArmonica implements EstrategiaEvaluacion {
+public class EstrategiaMediaArmonica implements EstrategiaCocienteDeSumas {
     @Override
     public double evaluar(List<Materia> materias) {
         if (materias.isEmpty()) return 0.0;
@@ -15,6 +15,33 @@ public class EstrategiaMediaArmonica implements EstrategiaEvaluacion {
         return materias.size() / suma;
     }
     
+    // La media armónica crece al bajar la suma de inversos: se usa la mejor sección de cada pendiente
+    @Override
+    public double cotaSuperior(List<Materia> asignadas, List<Materia> mejoresRestantes) {
+        int total = asignadas.size() + mejoresRestantes.size();
+        if (total == 0) return 0.0;
+        double suma = 0.0;
+        for (Materia m : asignadas) suma += 1.0 / m.obtenerCalificacion();
+        for (Materia m : mejoresRestantes) suma += 1.0 / m.obtenerCalificacion();
+        return total / suma;
+    }
+    
+    @Override
+    public double numerador(Materia materia) {
+        return 1.0;
+    }
+    
+    @Override
+    public double denominador(Materia materia) {
+        return 1.0 / materia.obtenerCalificacion();
+    }
+    
+    // Σ 1/calificación no sube si la calificación no baja; la duración no cuenta
+    @Override
+    public boolean puedeSustituir(Materia mejor, Materia peor) {
+        return mejor.obtenerCalificacion() >= peor.obtenerCalificacion();
+    }
+    
     @Override
     public String obtenerNombreEstrategia() {
         return "Media Armónica";
@@ -3,7 +3,7 @@ package programacion.horarios.estrategia;
 import java.util.List;
 import programacion.horarios.nucleo.Materia;
 
-public class EstrategiaPonderadaPorMinutos implements EstrategiaEvaluacion {
+public class EstrategiaPonderadaPorMinutos implements EstrategiaCocienteDeSumas {
     @Override
     public double evaluar(List<Materia> materias) {
         double sumaPonderada = 0;
@@ -18,6 +18,33 @@ public class EstrategiaPonderadaPorMinutos implements EstrategiaEvaluacion {
         return minutostTotales == 0 ? 0 : sumaPonderada / minutostTotales;
     }
     
+    // Un promedio ponderado nunca supera a su mayor término: se compara el parcial con la mejor calificación pendiente
+    @Override
+    public double cotaSuperior(List<Materia> asignadas, List<Materia> mejoresRestantes) {
+        double cota = asignadas.isEmpty() ? 0.0 : evaluar(asignadas);
+        for (Materia m : mejoresRestantes) {
+            cota = Math.max(cota, m.obtenerCalificacion());
+        }
+        return cota;
+    }
+    
+    @Override
+    public double numerador(Materia materia) {
+        return materia.obtenerCalificacion() * materia.obtenerMinutosTotales();
+    }
+    
+    @Override
+    public double denominador(Materia materia) {
+        return materia.obtenerMinutosTotales();
+    }
+    
+    // Con la misma duración el denominador no cambia y el numerador no baja
+    @Override
+    public boolean puedeSustituir(Materia mejor, Materia peor) {
+        return mejor.obtenerMinutosTotales() == peor.obtenerMinutosTotales()
+            && mejor.obtenerCalificacion() >= peor.obtenerCalificacion();
+    }
+    
     @Override
     public String obtenerNombreEstrategia() {
         return "Ponderado por Minutos";
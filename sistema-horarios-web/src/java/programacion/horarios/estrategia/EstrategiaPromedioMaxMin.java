@@ -21,6 +21,29 @@ public class EstrategiaPromedioMaxMin implements EstrategiaEvaluacion {
         return (min + max) / 2.0;
     }
     
+    // El máximo no pasa del mejor candidato y el mínimo no pasa de la peor "mejor opción"
+    @Override
+    public double cotaSuperior(List<Materia> asignadas, List<Materia> mejoresRestantes) {
+        if (asignadas.isEmpty() && mejoresRestantes.isEmpty()) return 0.0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (Materia m : asignadas) {
+            min = Math.min(min, m.obtenerCalificacion());
+            max = Math.max(max, m.obtenerCalificacion());
+        }
+        for (Materia m : mejoresRestantes) {
+            min = Math.min(min, m.obtenerCalificacion());
+            max = Math.max(max, m.obtenerCalificacion());
+        }
+        return (min + max) / 2.0;
+    }
+    
+    // Ni el mínimo ni el máximo bajan si la calificación no baja
+    @Override
+    public boolean puedeSustituir(Materia mejor, Materia peor) {
+        return mejor.obtenerCalificacion() >= peor.obtenerCalificacion();
+    }
+    
     @Override
     public String obtenerNombreEstrategia() {
         return "Promedio Máx-Mín";
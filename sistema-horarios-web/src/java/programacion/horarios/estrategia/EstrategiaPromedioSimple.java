@@ -3,7 +3,7 @@ package programacion.horarios.estrategia;
 import java.util.List;
 import programacion.horarios.nucleo.Materia;
 
-public class EstrategiaPromedioSimple implements EstrategiaEvaluacion {
+public class EstrategiaPromedioSimple implements EstrategiaCocienteDeSumas {
     @Override
     public double evaluar(List<Materia> materias) {
         return materias.stream()
@@ -12,6 +12,33 @@ public class EstrategiaPromedioSimple implements EstrategiaEvaluacion {
             .orElse(0.0);
     }
     
+    // Cada materia pendiente aporta exactamente una sección: a lo más la mejor compatible
+    @Override
+    public double cotaSuperior(List<Materia> asignadas, List<Materia> mejoresRestantes) {
+        int total = asignadas.size() + mejoresRestantes.size();
+        if (total == 0) return 0.0;
+        double suma = 0.0;
+        for (Materia m : asignadas) suma += m.obtenerCalificacion();
+        for (Materia m : mejoresRestantes) suma += m.obtenerCalificacion();
+        return suma / total;
+    }
+    
+    @Override
+    public double numerador(Materia materia) {
+        return materia.obtenerCalificacion();
+    }
+    
+    @Override
+    public double denominador(Materia materia) {
+        return 1.0;
+    }
+    
+    // La duración no cuenta: basta con no bajar la calificación
+    @Override
+    public boolean puedeSustituir(Materia mejor, Materia peor) {
+        return mejor.obtenerCalificacion() >= peor.obtenerCalificacion();
+    }
+    
     @Override
     public String obtenerNombreEstrategia() {
         return "Promedio Simple";
@@ -1,35 +1,82 @@
 package programacion.horarios.estrategia.optimizada;
 
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import programacion.horarios.estrategia.EstrategiaCocienteDeSumas;
 import programacion.horarios.estrategia.EstrategiaEvaluacion;
 import programacion.horarios.nucleo.Materia;
+import programacion.horarios.nucleo.RegistroIdentificadores;
 
 public class EstrategiaEvaluacionConCache implements EstrategiaEvaluacion {
     private final EstrategiaEvaluacion estrategiaBase;
-    private final Map<String, Double> cache = new ConcurrentHashMap<>();
-    
-    public EstrategiaEvaluacionConCache(EstrategiaEvaluacion base) {
+    private final RegistroIdentificadores registro;
+    // Clave: conjunto de ids de sección del catálogo
+    private final Map<BitSet, Double> cache = new ConcurrentHashMap<>();
+
+    public EstrategiaEvaluacionConCache(EstrategiaEvaluacion base, RegistroIdentificadores registro) {
         this.estrategiaBase = base;
+        this.registro = registro;
+    }
+
+    /** Envuelve {@code base} conservando, si lo es, que su puntaje es un cociente de sumas. */
+    public static EstrategiaEvaluacionConCache envolver(EstrategiaEvaluacion base, RegistroIdentificadores registro) {
+        return base instanceof EstrategiaCocienteDeSumas cociente
+            ? new DeCociente(cociente, registro)
+            : new EstrategiaEvaluacionConCache(base, registro);
     }
-    
+
     @Override
     public double evaluar(List<Materia> materias) {
-        String clave = generarClave(materias);
+        BitSet clave = generarClave(materias);
+        if (clave == null) {
+            return estrategiaBase.evaluar(materias); // materias fuera del catálogo
+        }
         return cache.computeIfAbsent(clave, k -> estrategiaBase.evaluar(materias));
     }
-    
-    private String generarClave(List<Materia> materias) {
-        return materias.stream()
-            .map(Materia::obtenerIdentificador)
-            .sorted()
-            .collect(Collectors.joining("|"));
+
+    private BitSet generarClave(List<Materia> materias) {
+        BitSet clave = new BitSet(registro.totalSecciones());
+        for (Materia materia : materias) {
+            int id = registro.idSeccion(materia);
+            if (id < 0) return null;
+            clave.set(id);
+        }
+        return clave;
     }
-    
+
+    @Override
+    public double cotaSuperior(List<Materia> asignadas, List<Materia> mejoresRestantes) {
+        return estrategiaBase.cotaSuperior(asignadas, mejoresRestantes);
+    }
+
+    @Override
+    public boolean puedeSustituir(Materia mejor, Materia peor) {
+        return estrategiaBase.puedeSustituir(mejor, peor);
+    }
+
     @Override
     public String obtenerNombreEstrategia() {
         return estrategiaBase.obtenerNombreEstrategia() + " (Cached)";
     }
-}
\ No newline at end of file
+
+    private static final class DeCociente extends EstrategiaEvaluacionConCache implements EstrategiaCocienteDeSumas {
+        private final EstrategiaCocienteDeSumas base;
+
+        DeCociente(EstrategiaCocienteDeSumas base, RegistroIdentificadores registro) {
+            super(base, registro);
+            this.base = base;
+        }
+
+        @Override
+        public double numerador(Materia materia) {
+            return base.numerador(materia);
+        }
+
+        @Override
+        public double denominador(Materia materia) {
+            return base.denominador(materia);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package programacion.horarios.nucleo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import programacion.horarios.nucleo.optimizado.InternadorCatalogo;
+
+/**
+ * Acumula los bloques de una sección y la congela de una sola vez: ordena las
+ * franjas una vez, empaqueta los intervalos y calcula la ocupación en bits.
+ */
+public final class ConstructorMateria {
+    private final Profesor profesor;
+    private final String nombreMateria;
+    private final String grupo;
+    private final List<DiaSemana> dias = new ArrayList<>();
+    private final List<FranjaHoraria> franjas = new ArrayList<>();
+    private InternadorCatalogo internador;
+
+    ConstructorMateria(Profesor profesor, String nombreMateria, String grupo) {
+        this.profesor = Objects.requireNonNull(profesor);
+        this.nombreMateria = Objects.requireNonNull(nombreMateria);
+        this.grupo = Objects.requireNonNull(grupo);
+    }
+
+    /** Comparte franjas y textos con el resto del catálogo a través del internador dado. */
+    public ConstructorMateria conInternador(InternadorCatalogo internador) {
+        this.internador = internador;
+        return this;
+    }
+
+    public ConstructorMateria agregarBloqueHorario(DiaSemana dia, FranjaHoraria franja) {
+        Objects.requireNonNull(franja);
+        return agregar(dia, internador != null ? internador.franja(franja) : franja);
+    }
+
+    /** Días como dígitos ("135" = lunes, miércoles y viernes) y uno o más rangos "HHMM-HHMM". */
+    public ConstructorMateria agregarBloqueHorario(String digitosDias, String... rangos) {
+        boolean[] marcados = new boolean[8];
+        for (char c : digitosDias.toCharArray()) {
+            int codigo = c - '0';
+            if (codigo >= 1 && codigo <= 7) {
+                marcados[codigo] = true;
+            }
+        }
+        for (String rango : rangos) {
+            FranjaHoraria franja = internador != null
+                ? internador.franja(rango) : new FranjaHoraria(rango);
+            for (int codigo = 1; codigo <= 7; codigo++) {
+                if (marcados[codigo]) {
+                    agregar(DiaSemana.desdeCodigo(codigo), franja);
+                }
+            }
+        }
+        return this;
+    }
+
+    private ConstructorMateria agregar(DiaSemana dia, FranjaHoraria franja) {
+        dias.add(Objects.requireNonNull(dia));
+        franjas.add(franja);
+        return this;
+    }
+
+    public Materia construir() {
+        int n = franjas.size();
+        Integer[] orden = new Integer[n];
+        for (int i = 0; i < n; i++) orden[i] = i;
+        Arrays.sort(orden, (a, b) -> Integer.compare(inicioSemanal(a), inicioSemanal(b)));
+
+        int[] intervalos = new int[2 * n];
+        FranjaHoraria[] ordenadas = new FranjaHoraria[n];
+        for (int k = 0; k < n; k++) {
+            int i = orden[k];
+            int base = (dias.get(i).obtenerCodigo() - 1) * Materia.MINUTOS_POR_DIA;
+            intervalos[2 * k] = base + franjas.get(i).obtenerMinutoInicio();
+            intervalos[2 * k + 1] = base + franjas.get(i).obtenerMinutoFin();
+            ordenadas[k] = franjas.get(i);
+        }
+        String nombre = internador != null ? internador.texto(nombreMateria) : nombreMateria;
+        String grupoFinal = internador != null ? internador.texto(grupo) : grupo;
+        return new Materia(profesor, nombre, grupoFinal, intervalos, ordenadas,
+                           OcupacionSemanal.desde(intervalos));
+    }
+
+    private int inicioSemanal(int i) {
+        return (dias.get(i).obtenerCodigo() - 1) * Materia.MINUTOS_POR_DIA
+             + franjas.get(i).obtenerMinutoInicio();
+    }
+}
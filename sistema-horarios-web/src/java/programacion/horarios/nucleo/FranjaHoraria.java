@@ -32,13 +32,21 @@ public final class FranjaHoraria {
     }
     
     public boolean seSuperpone(FranjaHoraria otra) {
+        if (this == otra) return true; // franjas internadas: misma instancia, mismo rango
         return this.horaInicio < otra.horaFin && otra.horaInicio < this.horaFin;
     }
     
     public int obtenerDuracionMinutos() {
-        int minutoInicio = (horaInicio/100) * 60 + (horaInicio%100);
-        int minutoFin = (horaFin/100) * 60 + (horaFin%100);
-        return minutoFin - minutoInicio;
+        return obtenerMinutoFin() - obtenerMinutoInicio();
+    }
+    
+    // Minutos transcurridos desde la medianoche
+    public int obtenerMinutoInicio() {
+        return (horaInicio/100) * 60 + (horaInicio%100);
+    }
+    
+    public int obtenerMinutoFin() {
+        return (horaFin/100) * 60 + (horaFin%100);
     }
     
     public String formatear() {
@@ -48,4 +56,17 @@ public final class FranjaHoraria {
     
     public int obtenerHoraInicio() { return horaInicio; }
     public int obtenerHoraFin() { return horaFin; }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FranjaHoraria)) return false;
+        FranjaHoraria f = (FranjaHoraria) o;
+        return horaInicio == f.horaInicio && horaFin == f.horaFin;
+    }
+    
+    @Override
+    public int hashCode() {
+        return horaInicio * 10000 + horaFin;
+    }
 }
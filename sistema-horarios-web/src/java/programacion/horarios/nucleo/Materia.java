@@ -1,142 +1,165 @@
 package programacion.horarios.nucleo;
 
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.EnumMap;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
-import java.util.stream.Stream;
 
+/**
+ * Sección inmutable de una materia. Las franjas se guardan empaquetadas como
+ * intervalos [inicio, fin) en minutos de la semana, ordenados, junto con los
+ * minutos totales, la máscara de días y la ocupación en bits ya calculados.
+ * Se crea con {@link #constructor(Profesor, String, String)}.
+ */
 public class Materia implements Programable, Comparable<Materia> {
+    public static final int MINUTOS_POR_DIA = 24 * 60;
+
     private final Profesor profesor;
     private final String nombreMateria;
     private final String grupo;
-    private final Map<DiaSemana, List<FranjaHoraria>> horario;
-    
-    public Materia(Profesor profesor, String nombreMateria, String grupo) {
+
+    private final int[] intervalos;          // pares inicio/fin en minutos de la semana
+    private final FranjaHoraria[] franjas;   // franja original de cada intervalo
+    private final int minutosTotales;
+    private final int mascaraDias;           // bit (codigo - 1) encendido si hay clase ese día
+    private final OcupacionSemanal ocupacion;
+    private final Map<Integer, List<FranjaHoraria>> vistaHorario;
+    private String identificador; // se arma una sola vez, en el primer uso
+
+    Materia(Profesor profesor, String nombreMateria, String grupo,
+            int[] intervalos, FranjaHoraria[] franjas, OcupacionSemanal ocupacion) {
         this.profesor = Objects.requireNonNull(profesor);
         this.nombreMateria = Objects.requireNonNull(nombreMateria);
         this.grupo = Objects.requireNonNull(grupo);
-        this.horario = new EnumMap<>(DiaSemana.class);
+        this.intervalos = intervalos;
+        this.franjas = franjas;
+        this.ocupacion = ocupacion;
+
+        int minutos = 0;
+        for (int i = 0; i < intervalos.length; i += 2) {
+            minutos += intervalos[i + 1] - intervalos[i];
+        }
+        this.minutosTotales = minutos;
+        this.mascaraDias = ocupacion.obtenerMascaraDias();
+        this.vistaHorario = crearVistaHorario(intervalos, franjas);
     }
-    
-    public Materia agregarBloqueHorario(DiaSemana dia, FranjaHoraria franja) {
-        horario.computeIfAbsent(dia, k -> new ArrayList<>()).add(franja);
-        horario.get(dia).sort(Comparator.comparingInt(FranjaHoraria::obtenerHoraInicio));
-        horario.get(dia).sort(Comparator.comparingInt(FranjaHoraria::obtenerHoraInicio));
-        return this;
+
+    // Comparte todo el estado congelado del origen; solo cambia el grupo
+    Materia(Materia origen, String nuevoGrupo) {
+        this.profesor = origen.profesor;
+        this.nombreMateria = origen.nombreMateria;
+        this.grupo = Objects.requireNonNull(nuevoGrupo);
+        this.intervalos = origen.intervalos;
+        this.franjas = origen.franjas;
+        this.minutosTotales = origen.minutosTotales;
+        this.mascaraDias = origen.mascaraDias;
+        this.ocupacion = origen.ocupacion;
+        this.vistaHorario = origen.vistaHorario;
     }
-    
-    public Materia agregarBloqueHorario(String digitosDias, String... rangos) {
-        Set<DiaSemana> dias = procesarDias(digitosDias);
-        for (DiaSemana dia : dias) {
-            for (String rango : rangos) {
-                agregarBloqueHorario(dia, new FranjaHoraria(rango));
-            }
-        }
-        return this;
+
+    public static ConstructorMateria constructor(Profesor profesor, String nombreMateria, String grupo) {
+        return new ConstructorMateria(profesor, nombreMateria, grupo);
     }
-    
-    private Set<DiaSemana> procesarDias(String digitos) {
-        Set<DiaSemana> dias = new HashSet<>();
-        for (char c : digitos.toCharArray()) {
-            if (Character.isDigit(c)) {
-                int codigo = c - '0';
-                if (codigo >= 1 && codigo <= 7) {
-                    dias.add(DiaSemana.desdeCodigo(codigo));
-                }
-            }
+
+    private static Map<Integer, List<FranjaHoraria>> crearVistaHorario(int[] intervalos,
+                                                                       FranjaHoraria[] franjas) {
+        Map<Integer, List<FranjaHoraria>> vista = new LinkedHashMap<>();
+        for (int i = 0; i < franjas.length; i++) {
+            int codigoDia = intervalos[2 * i] / MINUTOS_POR_DIA + 1;
+            vista.computeIfAbsent(codigoDia, k -> new ArrayList<>()).add(franjas[i]);
         }
-        return dias;
+        vista.replaceAll((dia, lista) -> Collections.unmodifiableList(lista));
+        return Collections.unmodifiableMap(vista);
     }
-    
+
+    /** Vista de solo lectura, calculada al construir la materia (no se copia en cada llamada). */
     @Override
     public Map<Integer, List<FranjaHoraria>> obtenerHorario() {
-        Map<Integer, List<FranjaHoraria>> resultado = new HashMap<>();
-        for (var entrada : horario.entrySet()) {
-            resultado.put(entrada.getKey().obtenerCodigo(), new ArrayList<>(entrada.getValue()));
-        }
-        return resultado;
+        return vistaHorario;
     }
-    
+
     @Override
     public boolean tieneConflictoCon(Programable otro) {
         if (!(otro instanceof Materia)) return false;
         Materia otraMateria = (Materia) otro;
-        
-        if (!this.grupo.equals(otraMateria.grupo)) {
-            return verificarSuperposicionTiempo(otraMateria);
+
+        // Filtro por mapa de bits; solo se recorren franjas si hay horas desalineadas
+        if (!ocupacion.seSuperponeCon(otraMateria.ocupacion)) {
+            return false;
+        }
+        if (ocupacion.esExacta() && otraMateria.ocupacion.esExacta()) {
+            return true;
         }
-        
         return verificarSuperposicionTiempo(otraMateria);
     }
-    
+
+    // Ambos arreglos están ordenados por inicio: se corta en cuanto el otro empieza después
     private boolean verificarSuperposicionTiempo(Materia otra) {
-        for (DiaSemana dia : horario.keySet()) {
-            List<FranjaHoraria> misFranjas = horario.get(dia);
-            List<FranjaHoraria> otrasFranjas = otra.horario.get(dia);
-            
-            if (otrasFranjas != null) {
-                for (FranjaHoraria miFranja : misFranjas) {
-                    for (FranjaHoraria otraFranja : otrasFranjas) {
-                        if (miFranja.seSuperpone(otraFranja)) {
-                            return true;
-                        }
-                    }
+        for (int i = 0; i < intervalos.length; i += 2) {
+            for (int j = 0; j < otra.intervalos.length && otra.intervalos[j] < intervalos[i + 1]; j += 2) {
+                if (intervalos[i] < otra.intervalos[j + 1]) {
+                    return true;
                 }
             }
         }
         return false;
     }
-    
+
     @Override
     public int obtenerMinutosTotales() {
-        return horario.values().stream()
-            .flatMap(List::stream)
-            .mapToInt(FranjaHoraria::obtenerDuracionMinutos)
-            .sum();
+        return minutosTotales;
     }
-    
+
     @Override
     public String obtenerIdentificador() {
-        return nombreMateria + "_" + grupo + "_" + profesor.obtenerNombreCompleto();
+        if (identificador == null) {
+            identificador = nombreMateria + "_" + grupo + "_" + profesor.obtenerNombreCompleto();
+        }
+        return identificador;
     }
-    
+
+    /** Devuelve una vista de esta sección en otro grupo; no copia el horario. */
     public Materia clonarConGrupo(String nuevoGrupo) {
-        Materia clon = new Materia(profesor, nombreMateria, nuevoGrupo);
-        for (var entrada : horario.entrySet()) {
-            for (FranjaHoraria franja : entrada.getValue()) {
-                clon.agregarBloqueHorario(entrada.getKey(), franja);
-            }
-        }
-        return clon;
+        return new VistaMateriaGrupo(obtenerOriginal(), nuevoGrupo);
     }
     
+    /** Sección del catálogo de la que proviene (ella misma si no es una vista). */
+    public Materia obtenerOriginal() {
+        return this;
+    }
+
     @Override
     public int compareTo(Materia otra) {
-        return Double.compare(otra.profesor.obtenerCalificacion(), 
+        return Double.compare(otra.profesor.obtenerCalificacion(),
                              this.profesor.obtenerCalificacion());
     }
-    
+
+    // Lectura de intervalos sin copiar (minutos de la semana, lunes 00:00 = 0)
+    public int obtenerNumeroIntervalos() { return franjas.length; }
+    public int obtenerInicioIntervalo(int i) { return intervalos[2 * i]; }
+    public int obtenerFinIntervalo(int i) { return intervalos[2 * i + 1]; }
+    public int obtenerCodigoDiaIntervalo(int i) { return intervalos[2 * i] / MINUTOS_POR_DIA + 1; }
+    public FranjaHoraria obtenerFranja(int i) { return franjas[i]; }
+
     // getters
     public Profesor obtenerProfesor() { return profesor; }
     public String obtenerNombreMateria() { return nombreMateria; }
     public String obtenerGrupo() { return grupo; }
     public double obtenerCalificacion() { return profesor.obtenerCalificacion(); }
-    
+    public int obtenerMascaraDias() { return mascaraDias; }
+    public OcupacionSemanal obtenerOcupacion() { return ocupacion; }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append(nombreMateria).append(" [").append(grupo).append("] | ")
           .append("Prof: ").append(profesor.obtenerNombreCompleto()).append(" | ")
           .append("Calif: ").append(profesor.obtenerCalificacion()).append(" | ");
-        
-        for (var entrada : horario.entrySet()) {
-            sb.append(entrada.getKey().obtenerAbreviacion()).append(": ");
+
+        for (var entrada : vistaHorario.entrySet()) {
+            sb.append(DiaSemana.desdeCodigo(entrada.getKey()).obtenerAbreviacion()).append(": ");
             for (FranjaHoraria franja : entrada.getValue()) {
                 sb.append("[").append(franja.formatear()).append("] ");
             }
@@ -144,4 +167,3 @@ public class Materia implements Programable, Comparable<Materia> {
         return sb.toString();
     }
 }
-
@@ -0,0 +1,68 @@
+package programacion.horarios.nucleo;
+
+/**
+ * Mapa de bits inmutable con la ocupación semanal de una materia.
+ * Cada día se divide en ranuras de 5 minutos (288 ranuras = 5 palabras de 64 bits),
+ * de modo que detectar un choque se reduce a unas cuantas operaciones AND.
+ */
+public final class OcupacionSemanal {
+    public static final int MINUTOS_POR_RANURA = 5;
+    private static final int MINUTOS_POR_DIA = 24 * 60;
+    static final int RANURAS_POR_DIA = MINUTOS_POR_DIA / MINUTOS_POR_RANURA;
+    static final int PALABRAS_POR_DIA = (RANURAS_POR_DIA + 63) / 64;
+
+    private final long[] palabras;
+    private final int mascaraDias;   // bit (codigo - 1) encendido si el día tiene clases
+    private final boolean exacta;    // todas las franjas caen en múltiplos de 5 minutos
+
+    private OcupacionSemanal(long[] palabras, int mascaraDias, boolean exacta) {
+        this.palabras = palabras;
+        this.mascaraDias = mascaraDias;
+        this.exacta = exacta;
+    }
+
+    /** Construye la ocupación a partir de pares inicio/fin en minutos de la semana. */
+    public static OcupacionSemanal desde(int[] intervalos) {
+        long[] palabras = new long[7 * PALABRAS_POR_DIA];
+        int mascaraDias = 0;
+        boolean exacta = true;
+        for (int k = 0; k < intervalos.length; k += 2) {
+            int dia = intervalos[k] / MINUTOS_POR_DIA;
+            int inicio = intervalos[k] % MINUTOS_POR_DIA;
+            int fin = intervalos[k + 1] - dia * MINUTOS_POR_DIA;
+            // Se redondea hacia afuera: una franja desalineada ocupa la ranura completa
+            int primera = inicio / MINUTOS_POR_RANURA;
+            int ultima = (fin + MINUTOS_POR_RANURA - 1) / MINUTOS_POR_RANURA - 1;
+            int base = dia * PALABRAS_POR_DIA;
+            for (int ranura = primera; ranura <= ultima; ranura++) {
+                palabras[base + (ranura >>> 6)] |= 1L << ranura;
+            }
+            mascaraDias |= 1 << dia;
+            exacta &= inicio % MINUTOS_POR_RANURA == 0 && fin % MINUTOS_POR_RANURA == 0;
+        }
+        return new OcupacionSemanal(palabras, mascaraDias, exacta);
+    }
+
+    /**
+     * Indica si ambas ocupaciones comparten alguna ranura. Cuando las dos son exactas
+     * la respuesta es definitiva; si alguna no lo es, un {@code true} puede ser un falso
+     * positivo y debe confirmarse comparando las franjas.
+     */
+    public boolean seSuperponeCon(OcupacionSemanal otra) {
+        int comunes = mascaraDias & otra.mascaraDias;
+        while (comunes != 0) {
+            int dia = Integer.numberOfTrailingZeros(comunes);
+            comunes &= comunes - 1;
+            int base = dia * PALABRAS_POR_DIA;
+            for (int i = base; i < base + PALABRAS_POR_DIA; i++) {
+                if ((palabras[i] & otra.palabras[i]) != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public boolean esExacta() { return exacta; }
+    public int obtenerMascaraDias() { return mascaraDias; }
+}
@@ -0,0 +1,90 @@
+package programacion.horarios.nucleo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ids enteros densos de secciones, materias y profesores de un catálogo.
+ * Se asignan una sola vez al cargarlo, en orden de aparición, para que los
+ * algoritmos, cachés e índices trabajen con enteros y colecciones primitivas
+ * en lugar de concatenar identificadores de texto.
+ */
+public final class RegistroIdentificadores {
+    private final Map<Materia, Integer> idsSeccion = new IdentityHashMap<>();
+    private final Map<String, Integer> idsMateria = new HashMap<>();
+    private final Map<Profesor, Integer> idsProfesor = new HashMap<>();
+
+    private final Materia[] secciones;
+    private final int[] materiaDeSeccion;
+    private final int[] profesorDeSeccion;
+    private final List<String> nombresMaterias = new ArrayList<>();
+    private final List<Profesor> profesores = new ArrayList<>();
+    private final int[][] seccionesPorMateria;
+
+    public RegistroIdentificadores(List<Materia> catalogo) {
+        this.secciones = catalogo.toArray(new Materia[0]);
+        this.materiaDeSeccion = new int[secciones.length];
+        this.profesorDeSeccion = new int[secciones.length];
+
+        int[] totalPorMateria = new int[secciones.length];
+        for (int id = 0; id < secciones.length; id++) {
+            Materia seccion = secciones[id];
+            idsSeccion.putIfAbsent(seccion, id);
+
+            int idMateria = idsMateria.computeIfAbsent(seccion.obtenerNombreMateria(), nombre -> {
+                nombresMaterias.add(nombre);
+                return nombresMaterias.size() - 1;
+            });
+            int idProfesor = idsProfesor.computeIfAbsent(seccion.obtenerProfesor(), profesor -> {
+                profesores.add(profesor);
+                return profesores.size() - 1;
+            });
+            materiaDeSeccion[id] = idMateria;
+            profesorDeSeccion[id] = idProfesor;
+            totalPorMateria[idMateria]++;
+        }
+
+        this.seccionesPorMateria = new int[nombresMaterias.size()][];
+        for (int m = 0; m < seccionesPorMateria.length; m++) {
+            seccionesPorMateria[m] = new int[totalPorMateria[m]];
+        }
+        int[] llenas = new int[nombresMaterias.size()];
+        for (int id = 0; id < secciones.length; id++) {
+            int m = materiaDeSeccion[id];
+            seccionesPorMateria[m][llenas[m]++] = id;
+        }
+    }
+
+    /** Id de la sección (o de la original, si es una vista), o -1 si no pertenece a este catálogo. */
+    public int idSeccion(Materia materia) {
+        Integer id = idsSeccion.get(materia.obtenerOriginal());
+        return id != null ? id : -1;
+    }
+
+    /** Id de la materia (nombre), o -1 si no existe en el catálogo. */
+    public int idMateria(String nombreMateria) {
+        Integer id = idsMateria.get(nombreMateria);
+        return id != null ? id : -1;
+    }
+
+    public int idProfesor(Profesor profesor) {
+        Integer id = idsProfesor.get(profesor);
+        return id != null ? id : -1;
+    }
+
+    public Materia seccion(int idSeccion) { return secciones[idSeccion]; }
+    public int materiaDeSeccion(int idSeccion) { return materiaDeSeccion[idSeccion]; }
+    public int profesorDeSeccion(int idSeccion) { return profesorDeSeccion[idSeccion]; }
+    public String nombreMateria(int idMateria) { return nombresMaterias.get(idMateria); }
+    public Profesor profesor(int idProfesor) { return profesores.get(idProfesor); }
+
+    /** Ids de las secciones de una materia, en orden de catálogo (no modificar). */
+    public int[] seccionesDeMateria(int idMateria) { return seccionesPorMateria[idMateria]; }
+
+    public int totalSecciones() { return secciones.length; }
+    public int totalMaterias() { return nombresMaterias.size(); }
+    public int totalProfesores() { return profesores.size(); }
+}
@@ -7,25 +7,134 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import programacion.horarios.nucleo.optimizado.DominiosConsistentes;
+import programacion.horarios.nucleo.optimizado.InternadorCatalogo;
+import programacion.horarios.nucleo.optimizado.MatrizConflictos;
+import programacion.horarios.nucleo.optimizado.TablaZobrist;
 
 public class RepositorioMaterias {
     private final List<Materia> materias;
     private final Map<String, List<Materia>> porGrupo;
     private final Map<String, List<Materia>> porMateria;
+    private final RegistroIdentificadores registro;
+    private final MatrizConflictos matrizConflictos;
+    private final TablaZobrist tablaZobrist;
+    private final InternadorCatalogo internador;
+    private final Map<String, Set<String>> coberturaFija; // null: se calcula de las secciones
+    private final Map<Set<String>, DominiosConsistentes> dominios = new ConcurrentHashMap<>();
+    private final Set<Set<String>> conjuntosGuardados; // catálogo completo y cobertura de cada grupo
+    private final VersionCatalogo version;
     
     public RepositorioMaterias(List<Materia> materias) {
+        this(materias, new InternadorCatalogo());
+    }
+    
+    public RepositorioMaterias(List<Materia> materias, InternadorCatalogo internador) {
+        this(materias, internador, null);
+    }
+    
+    private RepositorioMaterias(List<Materia> materias, InternadorCatalogo internador,
+                                Map<String, Set<String>> coberturaFija) {
         this.materias = new ArrayList<>(materias);
         this.porGrupo = materias.stream()
             .collect(Collectors.groupingBy(Materia::obtenerGrupo));
         this.porMateria = materias.stream()
             .collect(Collectors.groupingBy(Materia::obtenerNombreMateria));
+        this.registro = new RegistroIdentificadores(this.materias);
+        this.matrizConflictos = new MatrizConflictos(this.materias);
+        this.tablaZobrist = new TablaZobrist(this.materias.size());
+        this.internador = internador;
+        this.coberturaFija = coberturaFija;
+        Set<Set<String>> conjuntos = new HashSet<>(calcularCoberturaGrupos().values());
+        conjuntos.add(obtenerTodosLosNombresMaterias());
+        this.conjuntosGuardados = Set.copyOf(conjuntos);
+        this.version = VersionCatalogo.calcular(this.materias);
+    }
+    
+    /**
+     * Subcatálogo con las secciones que cumplen {@code conservar}. Mantiene la cobertura
+     * de grupos del catálogo completo para que quitar secciones no cambie las materias
+     * objetivo de los constructores.
+     */
+    public RepositorioMaterias filtrar(Predicate<Materia> conservar) {
+        List<Materia> conservadas = materias.stream().filter(conservar).collect(Collectors.toList());
+        return new RepositorioMaterias(conservadas, internador, calcularCoberturaGrupos());
     }
     
     public List<Materia> obtenerMaterias() {
         return new ArrayList<>(materias);
     }
     
+    public RegistroIdentificadores obtenerRegistro() {
+        return registro;
+    }
+    
+    public int obtenerIdSeccion(Materia materia) {
+        return registro.idSeccion(materia);
+    }
+    
+    public Materia obtenerSeccion(int idSeccion) {
+        return materias.get(idSeccion);
+    }
+    
+    public int obtenerTotalSecciones() {
+        return materias.size();
+    }
+    
+    public InternadorCatalogo obtenerInternador() {
+        return internador;
+    }
+    
+    public MatrizConflictos obtenerMatrizConflictos() {
+        return matrizConflictos;
+    }
+    
+    public TablaZobrist obtenerTablaZobrist() {
+        return tablaZobrist;
+    }
+    
+    /** Huella del contenido: cambia si y solo si cambia alguna sección. */
+    public VersionCatalogo obtenerVersion() {
+        return version;
+    }
+    
+    /**
+     * Dominios consistentes para un horario completo de {@code nombresMaterias}. Los del
+     * catálogo completo y los de cada grupo se calculan una vez; cualquier otro conjunto
+     * (por ejemplo, el que arma una petición con profesores fijados) se calcula cada vez
+     * para que la petición no pueda hacer crecer el mapa.
+     */
+    public DominiosConsistentes obtenerDominios(Set<String> nombresMaterias) {
+        Set<String> clave = Set.copyOf(nombresMaterias);
+        if (!conjuntosGuardados.contains(clave)) {
+            return DominiosConsistentes.calcular(registro, matrizConflictos, clave);
+        }
+        DominiosConsistentes existentes = dominios.get(clave);
+        if (existentes != null) return existentes;
+        // Se calcula fuera del mapa para no bloquearlo; si dos hilos coinciden gana el primero
+        DominiosConsistentes calculados = DominiosConsistentes.calcular(registro, matrizConflictos, clave);
+        DominiosConsistentes previos = dominios.putIfAbsent(clave, calculados);
+        return previos != null ? previos : calculados;
+    }
+    
+    /** Calcula en paralelo los dominios del catálogo completo y de las materias de cada grupo. */
+    public void precalcularDominios() {
+        conjuntosGuardados.parallelStream().forEach(this::obtenerDominios);
+    }
+    
+    // O(1) con la matriz; las materias ajenas al catálogo se comparan franja por franja
+    public boolean hayConflicto(Materia a, Materia b) {
+        int idA = obtenerIdSeccion(a);
+        int idB = obtenerIdSeccion(b);
+        if (idA >= 0 && idB >= 0) {
+            return matrizConflictos.hayConflicto(idA, idB);
+        }
+        return a.tieneConflictoCon(b);
+    }
+    
     public List<Materia> obtenerPorGrupo(String grupo) {
         return porGrupo.getOrDefault(grupo, List.of());
     }
@@ -44,6 +153,10 @@ public class RepositorioMaterias {
     
     public Map<String, Set<String>> calcularCoberturaGrupos() {
         Map<String, Set<String>> cobertura = new HashMap<>();
+        if (coberturaFija != null) {
+            coberturaFija.forEach((grupo, nombres) -> cobertura.put(grupo, new HashSet<>(nombres)));
+            return cobertura;
+        }
         for (Materia m : materias) {
             cobertura.computeIfAbsent(m.obtenerGrupo(), k -> new HashSet<>())
                    .add(m.obtenerNombreMateria());
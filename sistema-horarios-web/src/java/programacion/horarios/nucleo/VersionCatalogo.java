@@ -0,0 +1,116 @@
+package programacion.horarios.nucleo;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Huella de contenido de un catálogo: una por materia, calculada sobre sus secciones
+ * (grupo, profesor, calificación e intervalos), y una global que las combina. Dos
+ * catálogos con las mismas secciones tienen la misma versión aunque vengan en otro
+ * orden o de otra carga, así que comparar versiones dice exactamente qué materias
+ * cambiaron.
+ */
+public final class VersionCatalogo {
+    private static final long SEMILLA_TEXTO = 0xCBF29CE484222325L; // FNV-1a de 64 bits
+    private static final long PRIMO_TEXTO = 0x100000001B3L;
+
+    private final Map<String, Long> huellasPorMateria;
+    private final long valor;
+    private final long disposicion;
+
+    private VersionCatalogo(Map<String, Long> huellasPorMateria, long disposicion) {
+        this.huellasPorMateria = Collections.unmodifiableMap(huellasPorMateria);
+        this.disposicion = disposicion;
+        long combinada = 0;
+        for (Map.Entry<String, Long> huella : huellasPorMateria.entrySet()) {
+            combinada += mezclar(hashTexto(huella.getKey()) ^ huella.getValue());
+        }
+        this.valor = combinada;
+    }
+
+    public static VersionCatalogo calcular(List<Materia> secciones) {
+        Map<String, Long> huellas = new HashMap<>();
+        long disposicion = 0;
+        for (Materia seccion : secciones) {
+            long huella = huellaSeccion(seccion);
+            // Suma: el orden de las secciones dentro de la materia no cuenta
+            huellas.merge(seccion.obtenerNombreMateria(), huella, Long::sum);
+            disposicion = mezclar(disposicion * PRIMO_TEXTO ^ huella);
+        }
+        return new VersionCatalogo(huellas, disposicion);
+    }
+
+    private static long huellaSeccion(Materia seccion) {
+        long h = hashTexto(seccion.obtenerGrupo());
+        h = mezclar(h ^ hashTexto(seccion.obtenerProfesor().obtenerNombreCompleto()));
+        h = mezclar(h ^ Double.doubleToLongBits(seccion.obtenerCalificacion()));
+        for (int i = 0; i < seccion.obtenerNumeroIntervalos(); i++) {
+            h = mezclar(h ^ ((long) seccion.obtenerInicioIntervalo(i) << 32 | seccion.obtenerFinIntervalo(i)));
+        }
+        return mezclar(h);
+    }
+
+    private static long hashTexto(String texto) {
+        long h = SEMILLA_TEXTO;
+        for (int i = 0; i < texto.length(); i++) {
+            h = (h ^ texto.charAt(i)) * PRIMO_TEXTO;
+        }
+        return h;
+    }
+
+    // Finalizador de SplitMix64
+    private static long mezclar(long x) {
+        x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+        x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+        return x ^ (x >>> 31);
+    }
+
+    /** Materias agregadas, quitadas o con alguna sección distinta respecto de {@code anterior}. */
+    public Set<String> materiasCambiadas(VersionCatalogo anterior) {
+        Set<String> cambiadas = new HashSet<>();
+        huellasPorMateria.forEach((materia, huella) -> {
+            if (!huella.equals(anterior.huellasPorMateria.get(materia))) cambiadas.add(materia);
+        });
+        for (String materia : anterior.huellasPorMateria.keySet()) {
+            if (!huellasPorMateria.containsKey(materia)) cambiadas.add(materia);
+        }
+        return cambiadas;
+    }
+
+    public long obtenerValor() {
+        return valor;
+    }
+
+    /**
+     * Huella que además depende del orden de las secciones, es decir, de sus ids: dos
+     * catálogos con la misma disposición asignan el mismo id a la misma sección.
+     */
+    public long obtenerDisposicion() {
+        return disposicion;
+    }
+
+    public Map<String, Long> obtenerHuellasPorMateria() {
+        return huellasPorMateria;
+    }
+
+    /** Iguales si tienen el mismo contenido y el mismo orden, aunque vengan de cargas distintas. */
+    @Override
+    public boolean equals(Object otro) {
+        return otro instanceof VersionCatalogo version
+            && valor == version.valor && disposicion == version.disposicion;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(valor * 31 + disposicion);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%016x", valor);
+    }
+}
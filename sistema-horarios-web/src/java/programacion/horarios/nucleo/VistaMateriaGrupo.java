@@ -0,0 +1,20 @@
+package programacion.horarios.nucleo;
+
+/**
+ * Vista de una sección del catálogo asignada a otro grupo. No copia nada: comparte
+ * el horario congelado, el profesor y la ocupación de la sección original y solo
+ * sustituye el nombre del grupo.
+ */
+public final class VistaMateriaGrupo extends Materia {
+    private final Materia original;
+
+    VistaMateriaGrupo(Materia original, String grupo) {
+        super(original, grupo);
+        this.original = original;
+    }
+
+    @Override
+    public Materia obtenerOriginal() {
+        return original;
+    }
+}
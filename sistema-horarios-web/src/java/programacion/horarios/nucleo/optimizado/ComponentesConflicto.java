@@ -0,0 +1,77 @@
+package programacion.horarios.nucleo.optimizado;
+
+import java.util.Arrays;
+import programacion.horarios.nucleo.RegistroIdentificadores;
+
+/**
+ * Componentes conexas del grafo de conflictos entre materias: dos materias son
+ * vecinas si alguna sección de una choca con alguna sección de la otra. Materias
+ * de componentes distintas nunca se estorban, así que cada componente se puede
+ * resolver por separado. Se recorren las filas de la {@link MatrizConflictos} con
+ * unión-búsqueda.
+ */
+public final class ComponentesConflicto {
+
+    private ComponentesConflicto() {
+    }
+
+    /**
+     * Fila c = ids de materia de la componente c, en orden creciente; las componentes
+     * van ordenadas por su menor id de materia.
+     */
+    public static int[][] calcular(RegistroIdentificadores registro, MatrizConflictos matriz) {
+        int totalMaterias = registro.totalMaterias();
+        int[] padre = new int[totalMaterias];
+        for (int m = 0; m < totalMaterias; m++) {
+            padre[m] = m;
+        }
+        for (int id = 0; id < registro.totalSecciones(); id++) {
+            int materia = registro.materiaDeSeccion(id);
+            long[] fila = matriz.copiarFila(id);
+            for (int palabra = 0; palabra < fila.length; palabra++) {
+                long bits = fila[palabra];
+                while (bits != 0) {
+                    int otra = (palabra << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    unir(padre, materia, registro.materiaDeSeccion(otra));
+                }
+            }
+        }
+
+        int[] componenteDeRaiz = new int[totalMaterias];
+        Arrays.fill(componenteDeRaiz, -1);
+        int[] tamanos = new int[totalMaterias];
+        int totalComponentes = 0;
+        for (int m = 0; m < totalMaterias; m++) {
+            int raiz = raiz(padre, m);
+            if (componenteDeRaiz[raiz] < 0) componenteDeRaiz[raiz] = totalComponentes++;
+            tamanos[componenteDeRaiz[raiz]]++;
+        }
+        int[][] componentes = new int[totalComponentes][];
+        for (int c = 0; c < totalComponentes; c++) {
+            componentes[c] = new int[tamanos[c]];
+        }
+        int[] llenas = new int[totalComponentes];
+        for (int m = 0; m < totalMaterias; m++) {
+            int c = componenteDeRaiz[raiz(padre, m)];
+            componentes[c][llenas[c]++] = m;
+        }
+        return componentes;
+    }
+
+    private static int raiz(int[] padre, int m) {
+        while (padre[m] != m) {
+            padre[m] = padre[padre[m]]; // compresión a la mitad
+            m = padre[m];
+        }
+        return m;
+    }
+
+    private static void unir(int[] padre, int a, int b) {
+        int ra = raiz(padre, a);
+        int rb = raiz(padre, b);
+        if (ra != rb) {
+            padre[Math.max(ra, rb)] = Math.min(ra, rb);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package programacion.horarios.nucleo.optimizado;
+
+import java.util.function.BiPredicate;
+
+/**
+ * Conjunto de direccionamiento abierto sobre hashes de 64 bits en un {@code long[]}.
+ * Junto a cada hash se guarda una referencia al testigo del estado (un objeto que ya
+ * existe, no una copia) para confirmar la igualdad exacta cuando dos estados distintos
+ * comparten hash; en ese caso ambos se guardan, uno tras otro en la secuencia de sondeo.
+ */
+public final class ConjuntoHashLargo<T> {
+    private static final int CAPACIDAD_INICIAL = 1024;
+
+    private final BiPredicate<T, T> mismoEstado;
+    private long[] hashes;
+    private Object[] testigos;
+    private int tamano;
+    private long colisiones;
+
+    public ConjuntoHashLargo(BiPredicate<T, T> mismoEstado) {
+        this.mismoEstado = mismoEstado;
+        this.hashes = new long[CAPACIDAD_INICIAL];
+        this.testigos = new Object[CAPACIDAD_INICIAL];
+    }
+
+    /** Agrega el estado; devuelve {@code false} si ya estaba. */
+    @SuppressWarnings("unchecked")
+    public boolean agregar(long hash, T testigo) {
+        int mascara = hashes.length - 1;
+        int i = posicion(hash, mascara);
+        while (testigos[i] != null) {
+            if (hashes[i] == hash) {
+                if (mismoEstado.test((T) testigos[i], testigo)) {
+                    return false;
+                }
+                colisiones++;
+            }
+            i = (i + 1) & mascara;
+        }
+        hashes[i] = hash;
+        testigos[i] = testigo;
+        if (++tamano * 2 > hashes.length) {
+            crecer();
+        }
+        return true;
+    }
+
+    public int obtenerTamano() { return tamano; }
+
+    /** Veces que dos estados distintos compartieron hash (se resolvieron con el testigo). */
+    public long obtenerColisiones() { return colisiones; }
+
+    private void crecer() {
+        long[] hashesViejos = hashes;
+        Object[] testigosViejos = testigos;
+        hashes = new long[hashesViejos.length * 2];
+        testigos = new Object[testigosViejos.length * 2];
+        int mascara = hashes.length - 1;
+        for (int j = 0; j < hashesViejos.length; j++) {
+            if (testigosViejos[j] == null) continue;
+            int i = posicion(hashesViejos[j], mascara);
+            while (testigos[i] != null) {
+                i = (i + 1) & mascara;
+            }
+            hashes[i] = hashesViejos[j];
+            testigos[i] = testigosViejos[j];
+        }
+    }
+
+    private static int posicion(long hash, int mascara) {
+        return (int) (hash ^ (hash >>> 32)) & mascara;
+    }
+}
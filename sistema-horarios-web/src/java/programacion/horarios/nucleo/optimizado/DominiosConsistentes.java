@@ -0,0 +1,144 @@
+package programacion.horarios.nucleo.optimizado;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+import programacion.horarios.nucleo.RegistroIdentificadores;
+
+/**
+ * Dominios de las secciones que pueden aparecer en un horario completo de un conjunto
+ * de materias (una sección por materia, sin choques). Primero se aplica consistencia
+ * de arco: se quita toda sección que choca con todas las secciones vivas de otra
+ * materia. Después consistencia de arco singular: se fija cada sección viva sola en
+ * su materia y, si la consistencia de arco deja vacía alguna materia, la sección se
+ * quita. Las pruebas singulares de una ronda corren en paralelo. Si algún dominio se
+ * vacía no existe horario completo y se sabe antes de buscar.
+ * <p>
+ * Se calcula una vez por catálogo y conjunto de materias; {@code RepositorioMaterias}
+ * guarda el resultado.
+ */
+public final class DominiosConsistentes {
+    private final long[] permitidas; // unión de los dominios finales
+    private final boolean factible;
+    private final int podadas;
+
+    private DominiosConsistentes(long[] permitidas, boolean factible, int podadas) {
+        this.permitidas = permitidas;
+        this.factible = factible;
+        this.podadas = podadas;
+    }
+
+    public static DominiosConsistentes calcular(RegistroIdentificadores registro, MatrizConflictos matriz,
+                                                Set<String> nombresMaterias) {
+        int palabras = matriz.obtenerPalabrasPorFila();
+        int[] materias = new int[nombresMaterias.size()];
+        int k = 0;
+        int iniciales = 0;
+        for (String nombre : nombresMaterias) {
+            int id = registro.idMateria(nombre);
+            if (id < 0) return new DominiosConsistentes(new long[palabras], false, 0); // materia sin secciones
+            materias[k++] = id;
+            iniciales += registro.seccionesDeMateria(id).length;
+        }
+
+        long[][] dominios = new long[materias.length][palabras];
+        for (int m = 0; m < materias.length; m++) {
+            for (int id : registro.seccionesDeMateria(materias[m])) {
+                MatrizConflictos.agregar(dominios[m], id);
+            }
+        }
+
+        boolean factible = consistenciaArco(matriz, dominios);
+        while (factible) {
+            List<int[]> vivas = new ArrayList<>(); // pares materia/sección
+            for (int m = 0; m < materias.length; m++) {
+                for (int id : registro.seccionesDeMateria(materias[m])) {
+                    if (MatrizConflictos.contiene(dominios[m], id)) vivas.add(new int[]{m, id});
+                }
+            }
+            long[][] actuales = dominios;
+            int[][] inconsistentes = vivas.parallelStream()
+                .filter(par -> !singularConsistente(matriz, actuales, par[0], par[1]))
+                .toArray(int[][]::new);
+            if (inconsistentes.length == 0) break;
+            for (int[] par : inconsistentes) {
+                MatrizConflictos.quitar(dominios[par[0]], par[1]);
+            }
+            factible = consistenciaArco(matriz, dominios);
+        }
+
+        long[] permitidas = new long[palabras];
+        int finales = 0;
+        for (long[] dominio : dominios) {
+            for (int i = 0; i < palabras; i++) {
+                permitidas[i] |= dominio[i];
+                finales += Long.bitCount(dominio[i]);
+            }
+        }
+        return new DominiosConsistentes(permitidas, factible, iniciales - finales);
+    }
+
+    /**
+     * Quita de cada dominio las secciones sin apoyo en algún otro, hasta que nada
+     * cambie. Devuelve falso si algún dominio queda vacío.
+     */
+    private static boolean consistenciaArco(MatrizConflictos matriz, long[][] dominios) {
+        boolean cambio = true;
+        while (cambio) {
+            cambio = false;
+            for (int x = 0; x < dominios.length; x++) {
+                long[] dominio = dominios[x];
+                for (int i = 0; i < dominio.length; i++) {
+                    for (long palabra = dominio[i]; palabra != 0; palabra &= palabra - 1) {
+                        int id = (i << 6) + Long.numberOfTrailingZeros(palabra);
+                        for (int y = 0; y < dominios.length; y++) {
+                            if (y != x && !matriz.tieneCompatible(id, dominios[y])) {
+                                MatrizConflictos.quitar(dominio, id);
+                                cambio = true;
+                                break;
+                            }
+                        }
+                    }
+                }
+                if (estaVacio(dominio)) return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean singularConsistente(MatrizConflictos matriz, long[][] dominios, int materia, int id) {
+        long[][] copia = new long[dominios.length][];
+        for (int m = 0; m < dominios.length; m++) {
+            copia[m] = m == materia ? new long[dominios[m].length] : dominios[m].clone();
+        }
+        MatrizConflictos.agregar(copia[materia], id);
+        return consistenciaArco(matriz, copia);
+    }
+
+    private static boolean estaVacio(long[] conjunto) {
+        for (long palabra : conjunto) {
+            if (palabra != 0) return false;
+        }
+        return true;
+    }
+
+    /** Falso si ningún horario completo cubre todas las materias del conjunto. */
+    public boolean esFactible() {
+        return factible;
+    }
+
+    public boolean permite(int idSeccion) {
+        return MatrizConflictos.contiene(permitidas, idSeccion);
+    }
+
+    /** Las secciones de {@code secciones} que siguen en su dominio, en el mismo orden. */
+    public int[] filtrar(int[] secciones) {
+        return IntStream.of(secciones).filter(this::permite).toArray();
+    }
+
+    /** Secciones quitadas respecto de los dominios completos. */
+    public int obtenerPodadas() {
+        return podadas;
+    }
+}
@@ -1,53 +1,156 @@
 package programacion.horarios.nucleo.optimizado;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 import programacion.horarios.nucleo.FranjaHoraria;
 import programacion.horarios.nucleo.Materia;
 
+/**
+ * Índice exacto de ocupación por día. Cada día guarda intervalos disjuntos
+ * [inicio, fin) en minutos desde la medianoche, ordenados en arreglos primitivos,
+ * por lo que las consultas "¿está libre?" y "¿quién se superpone?" son búsquedas
+ * binarias. Pensado como estado incremental de ocupación durante la búsqueda:
+ * solo admite materias que no chocan con lo ya registrado.
+ */
 public class IndiceHorarios {
-    // Estructura: Día -> Hora -> Lista de Materias
-    private final Map<Integer, Map<Integer, Set<String>>> indiceOcupacion;
-    
+    private static final int CAPACIDAD_INICIAL = 8;
+
+    private final Dia[] dias = new Dia[8]; // indexado por código de día (1..7)
+
     public IndiceHorarios() {
-        this.indiceOcupacion = new HashMap<>();
         for (int dia = 1; dia <= 7; dia++) {
-            indiceOcupacion.put(dia, new HashMap<>());
-        }
-    }
-    
-    public void agregarMateria(Materia materia) {
-        for (var entrada : materia.obtenerHorario().entrySet()) {
-            int dia = entrada.getKey();
-            for (FranjaHoraria franja : entrada.getValue()) {
-                for (int hora = franja.obtenerHoraInicio() / 100; 
-                     hora < franja.obtenerHoraFin() / 100; hora++) {
-                    
-                    indiceOcupacion.get(dia)
-                        .computeIfAbsent(hora, k -> new HashSet<>())
-                        .add(materia.obtenerIdentificador());
-                }
-            }
+            dias[dia] = new Dia();
         }
     }
-    
-    // O(1) en lugar de O(n) para verificar conflictos
+
+    /** Registra la materia si todas sus franjas están libres; si alguna choca no modifica nada. */
+    public boolean agregarMateria(Materia materia) {
+        if (tieneConflicto(materia)) {
+            return false;
+        }
+        for (int i = 0; i < materia.obtenerNumeroIntervalos(); i++) {
+            FranjaHoraria franja = materia.obtenerFranja(i);
+            dias[materia.obtenerCodigoDiaIntervalo(i)]
+                .insertar(franja.obtenerMinutoInicio(), franja.obtenerMinutoFin(), materia);
+        }
+        return true;
+    }
+
+    /** Retira las franjas registradas por la materia (comparación por identidad). */
+    public void quitarMateria(Materia materia) {
+        for (int i = 0; i < materia.obtenerNumeroIntervalos(); i++) {
+            FranjaHoraria franja = materia.obtenerFranja(i);
+            dias[materia.obtenerCodigoDiaIntervalo(i)]
+                .eliminar(franja.obtenerMinutoInicio(), franja.obtenerMinutoFin(), materia);
+        }
+    }
+
     public boolean tieneConflicto(Materia nueva) {
-        for (var entrada : nueva.obtenerHorario().entrySet()) {
-            int dia = entrada.getKey();
-            for (FranjaHoraria franja : entrada.getValue()) {
-                for (int hora = franja.obtenerHoraInicio() / 100;
-                     hora < franja.obtenerHoraFin() / 100; hora++) {
-                    
-                    Set<String> ocupadas = indiceOcupacion.get(dia).get(hora);
-                    if (ocupadas != null && !ocupadas.isEmpty()) {
-                        return true;
-                    }
-                }
+        for (int i = 0; i < nueva.obtenerNumeroIntervalos(); i++) {
+            FranjaHoraria franja = nueva.obtenerFranja(i);
+            if (!dias[nueva.obtenerCodigoDiaIntervalo(i)]
+                    .estaLibre(franja.obtenerMinutoInicio(), franja.obtenerMinutoFin())) {
+                return true;
             }
         }
         return false;
     }
-}
\ No newline at end of file
+
+    public boolean estaLibre(int codigoDia, FranjaHoraria franja) {
+        return dias[codigoDia].estaLibre(franja.obtenerMinutoInicio(), franja.obtenerMinutoFin());
+    }
+
+    public List<Materia> obtenerSuperpuestas(int codigoDia, FranjaHoraria franja) {
+        List<Materia> resultado = new ArrayList<>();
+        dias[codigoDia].recolectar(franja.obtenerMinutoInicio(), franja.obtenerMinutoFin(), resultado);
+        return resultado;
+    }
+
+    /** Materias registradas que chocan con alguna franja de la dada, sin repetir. */
+    public Set<Materia> obtenerConflictos(Materia nueva) {
+        List<Materia> encontradas = new ArrayList<>();
+        for (int i = 0; i < nueva.obtenerNumeroIntervalos(); i++) {
+            FranjaHoraria franja = nueva.obtenerFranja(i);
+            dias[nueva.obtenerCodigoDiaIntervalo(i)]
+                .recolectar(franja.obtenerMinutoInicio(), franja.obtenerMinutoFin(), encontradas);
+        }
+        return new LinkedHashSet<>(encontradas);
+    }
+
+    public void limpiar() {
+        for (int dia = 1; dia <= 7; dia++) {
+            dias[dia].tamano = 0;
+            Arrays.fill(dias[dia].duenos, null);
+        }
+    }
+
+    private static final class Dia {
+        int[] inicios = new int[CAPACIDAD_INICIAL];
+        int[] fines = new int[CAPACIDAD_INICIAL];
+        Materia[] duenos = new Materia[CAPACIDAD_INICIAL];
+        int tamano;
+
+        // Primer intervalo cuyo fin es mayor que el minuto dado (los fines también
+        // quedan ordenados porque los intervalos son disjuntos)
+        int primeroQueTerminaDespues(int minuto) {
+            int bajo = 0, alto = tamano;
+            while (bajo < alto) {
+                int medio = (bajo + alto) >>> 1;
+                if (fines[medio] <= minuto) bajo = medio + 1;
+                else alto = medio;
+            }
+            return bajo;
+        }
+
+        boolean estaLibre(int inicio, int fin) {
+            int i = primeroQueTerminaDespues(inicio);
+            return i == tamano || inicios[i] >= fin;
+        }
+
+        void recolectar(int inicio, int fin, List<Materia> destino) {
+            for (int i = primeroQueTerminaDespues(inicio); i < tamano && inicios[i] < fin; i++) {
+                destino.add(duenos[i]);
+            }
+        }
+
+        void insertar(int inicio, int fin, Materia dueno) {
+            // Lo único que puede traslaparse aquí son franjas de la misma materia: se fusionan
+            int i = primeroQueTerminaDespues(inicio);
+            while (i < tamano && inicios[i] <= fin && duenos[i] == dueno) {
+                inicio = Math.min(inicio, inicios[i]);
+                fin = Math.max(fin, fines[i]);
+                quitar(i);
+            }
+            if (tamano == inicios.length) {
+                inicios = Arrays.copyOf(inicios, tamano * 2);
+                fines = Arrays.copyOf(fines, tamano * 2);
+                duenos = Arrays.copyOf(duenos, tamano * 2);
+            }
+            System.arraycopy(inicios, i, inicios, i + 1, tamano - i);
+            System.arraycopy(fines, i, fines, i + 1, tamano - i);
+            System.arraycopy(duenos, i, duenos, i + 1, tamano - i);
+            inicios[i] = inicio;
+            fines[i] = fin;
+            duenos[i] = dueno;
+            tamano++;
+        }
+
+        void eliminar(int inicio, int fin, Materia dueno) {
+            int i = primeroQueTerminaDespues(inicio);
+            while (i < tamano && inicios[i] < fin) {
+                if (duenos[i] == dueno) quitar(i);
+                else i++;
+            }
+        }
+
+        void quitar(int i) {
+            System.arraycopy(inicios, i + 1, inicios, i, tamano - i - 1);
+            System.arraycopy(fines, i + 1, fines, i, tamano - i - 1);
+            System.arraycopy(duenos, i + 1, duenos, i, tamano - i - 1);
+            duenos[--tamano] = null;
+        }
+    }
+}
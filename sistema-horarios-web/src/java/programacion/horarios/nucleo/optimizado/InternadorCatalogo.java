@@ -0,0 +1,65 @@
+package programacion.horarios.nucleo.optimizado;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import programacion.horarios.nucleo.FranjaHoraria;
+import programacion.horarios.nucleo.Profesor;
+
+/**
+ * Capa de internado (flyweight) de un catálogo: las mismas franjas horarias,
+ * profesores y textos que se repiten en cientos de filas se comparten por
+ * identidad. Así el catálogo ocupa menos memoria y las comparaciones pueden
+ * resolverse con {@code ==} antes de mirar los campos.
+ */
+public class InternadorCatalogo {
+    private final PoolFranjaHoraria franjas = new PoolFranjaHoraria();
+    private final Map<List<Object>, Profesor> profesores = new ConcurrentHashMap<>();
+    private final Map<String, String> textos = new ConcurrentHashMap<>();
+    private final LongAdder solicitudesProfesor = new LongAdder();
+    private final LongAdder solicitudesTexto = new LongAdder();
+
+    public FranjaHoraria franja(String rango) {
+        return franjas.obtener(rango);
+    }
+
+    public FranjaHoraria franja(int inicio, int fin) {
+        return franjas.obtener(inicio, fin);
+    }
+
+    public FranjaHoraria franja(FranjaHoraria franja) {
+        return franjas.obtener(franja);
+    }
+
+    /** La calificación forma parte de la clave: dos registros del mismo nombre con distinta calificación no se mezclan. */
+    public Profesor profesor(String nombre, String apellido, double calificacion) {
+        solicitudesProfesor.increment();
+        String nombreInternado = texto(nombre);
+        String apellidoInternado = texto(apellido);
+        return profesores.computeIfAbsent(List.of(nombreInternado, apellidoInternado, calificacion),
+            k -> new Profesor(nombreInternado, apellidoInternado, calificacion));
+    }
+
+    public String texto(String valor) {
+        solicitudesTexto.increment();
+        String existente = textos.putIfAbsent(valor, valor);
+        return existente != null ? existente : valor;
+    }
+
+    public Map<String, Object> obtenerEstadisticas() {
+        Map<String, Object> estadisticas = new LinkedHashMap<>();
+        estadisticas.put("franjasSolicitadas", franjas.obtenerSolicitudes());
+        estadisticas.put("franjasUnicas", franjas.obtenerUnicas());
+        estadisticas.put("profesoresSolicitados", solicitudesProfesor.sum());
+        estadisticas.put("profesoresUnicos", profesores.size());
+        estadisticas.put("textosSolicitados", solicitudesTexto.sum());
+        estadisticas.put("textosUnicos", textos.size());
+        estadisticas.put("objetosDeduplicados",
+            franjas.obtenerSolicitudes() - franjas.obtenerUnicas()
+            + solicitudesProfesor.sum() - profesores.size()
+            + solicitudesTexto.sum() - textos.size());
+        return estadisticas;
+    }
+}
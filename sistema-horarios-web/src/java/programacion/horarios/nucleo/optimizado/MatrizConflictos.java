@@ -0,0 +1,139 @@
+package programacion.horarios.nucleo.optimizado;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import programacion.horarios.nucleo.Materia;
+
+/**
+ * Matriz densa de bits con los choques entre todas las secciones de un catálogo.
+ * La fila i tiene encendido el bit j si las secciones i y j se superponen
+ * (la diagonal queda encendida para toda sección con horario). Se calcula una sola
+ * vez por catálogo, repartiendo bloques de filas en un ForkJoinPool.
+ */
+public final class MatrizConflictos {
+    private static final int FILAS_POR_TAREA = 64;
+
+    private final int tamano;
+    private final int palabrasPorFila;
+    private final long[] bits;
+
+    public MatrizConflictos(List<Materia> secciones) {
+        this.tamano = secciones.size();
+        this.palabrasPorFila = palabrasPara(tamano);
+        this.bits = new long[tamano * palabrasPorFila];
+        Materia[] arreglo = secciones.toArray(new Materia[0]);
+        ForkJoinPool.commonPool().invoke(new CalculoFilas(arreglo, 0, tamano));
+    }
+
+    /** Número de palabras necesarias para un conjunto de {@code n} secciones. */
+    public static int palabrasPara(int n) {
+        return (n + 63) >>> 6;
+    }
+
+    public boolean hayConflicto(int a, int b) {
+        return (bits[a * palabrasPorFila + (b >>> 6)] & (1L << b)) != 0;
+    }
+
+    /** destino = origen | fila(id): agrega al conjunto las secciones que chocan con {@code id}. */
+    public void acumularFila(int id, long[] origen, long[] destino) {
+        int base = id * palabrasPorFila;
+        for (int i = 0; i < palabrasPorFila; i++) {
+            destino[i] = origen[i] | bits[base + i];
+        }
+    }
+
+    /** candidatos &= ~fila(id): deja solo las secciones compatibles con {@code id}. */
+    public void filtrarCompatibles(int id, long[] candidatos) {
+        int base = id * palabrasPorFila;
+        for (int i = 0; i < palabrasPorFila; i++) {
+            candidatos[i] &= ~bits[base + i];
+        }
+    }
+
+    /** Indica si {@code id} choca con alguna sección del conjunto. */
+    public boolean chocaConAlguna(int id, long[] conjunto) {
+        int base = id * palabrasPorFila;
+        for (int i = 0; i < palabrasPorFila; i++) {
+            if ((conjunto[i] & bits[base + i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Indica si el conjunto tiene alguna sección compatible con {@code id}. */
+    public boolean tieneCompatible(int id, long[] conjunto) {
+        int base = id * palabrasPorFila;
+        for (int i = 0; i < palabrasPorFila; i++) {
+            if ((conjunto[i] & ~bits[base + i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** contadores[j] += delta por cada sección j que choca con {@code id}. */
+    public void sumarFila(int id, int[] contadores, int delta) {
+        int base = id * palabrasPorFila;
+        for (int i = 0; i < palabrasPorFila; i++) {
+            for (long palabra = bits[base + i]; palabra != 0; palabra &= palabra - 1) {
+                contadores[(i << 6) + Long.numberOfTrailingZeros(palabra)] += delta;
+            }
+        }
+    }
+
+    public long[] copiarFila(int id) {
+        long[] fila = new long[palabrasPorFila];
+        System.arraycopy(bits, id * palabrasPorFila, fila, 0, palabrasPorFila);
+        return fila;
+    }
+
+    public static boolean contiene(long[] conjunto, int id) {
+        return (conjunto[id >>> 6] & (1L << id)) != 0;
+    }
+
+    public static void agregar(long[] conjunto, int id) {
+        conjunto[id >>> 6] |= 1L << id;
+    }
+
+    public static void quitar(long[] conjunto, int id) {
+        conjunto[id >>> 6] &= ~(1L << id);
+    }
+
+    public int obtenerTamano() { return tamano; }
+    public int obtenerPalabrasPorFila() { return palabrasPorFila; }
+    public long obtenerBytes() { return (long) bits.length * Long.BYTES; }
+
+    @SuppressWarnings("serial")
+    private final class CalculoFilas extends RecursiveAction {
+        private final Materia[] secciones;
+        private final int desde;
+        private final int hasta;
+
+        CalculoFilas(Materia[] secciones, int desde, int hasta) {
+            this.secciones = secciones;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected void compute() {
+            if (hasta - desde <= FILAS_POR_TAREA) {
+                // Cada tarea escribe solo sus filas, así que no hay carreras
+                for (int i = desde; i < hasta; i++) {
+                    int base = i * palabrasPorFila;
+                    for (int j = 0; j < tamano; j++) {
+                        if (secciones[i].tieneConflictoCon(secciones[j])) {
+                            bits[base + (j >>> 6)] |= 1L << j;
+                        }
+                    }
+                }
+                return;
+            }
+            int medio = (desde + hasta) >>> 1;
+            invokeAll(new CalculoFilas(secciones, desde, medio),
+                      new CalculoFilas(secciones, medio, hasta));
+        }
+    }
+}
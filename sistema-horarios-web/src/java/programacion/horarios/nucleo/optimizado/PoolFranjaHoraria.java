@@ -2,17 +2,30 @@ package programacion.horarios.nucleo.optimizado;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import programacion.horarios.nucleo.FranjaHoraria;
 
 public class PoolFranjaHoraria {
-    private final Map<String, FranjaHoraria> pool = new ConcurrentHashMap<>();
-    
+    // Clave HHMM inicio * 10000 + HHMM fin: sin armar cadenas por consulta
+    private final Map<Integer, FranjaHoraria> pool = new ConcurrentHashMap<>();
+    private final LongAdder solicitudes = new LongAdder();
+
     public FranjaHoraria obtener(String rango) {
-        return pool.computeIfAbsent(rango, FranjaHoraria::new);
+        return obtener(new FranjaHoraria(rango));
     }
-    
+
     public FranjaHoraria obtener(int inicio, int fin) {
-        String clave = inicio + "-" + fin;
-        return pool.computeIfAbsent(clave, k -> new FranjaHoraria(inicio, fin));
+        solicitudes.increment();
+        return pool.computeIfAbsent(inicio * 10000 + fin, k -> new FranjaHoraria(inicio, fin));
     }
-}
\ No newline at end of file
+
+    public FranjaHoraria obtener(FranjaHoraria franja) {
+        solicitudes.increment();
+        FranjaHoraria existente = pool.putIfAbsent(
+            franja.obtenerHoraInicio() * 10000 + franja.obtenerHoraFin(), franja);
+        return existente != null ? existente : franja;
+    }
+
+    public long obtenerSolicitudes() { return solicitudes.sum(); }
+    public int obtenerUnicas() { return pool.size(); }
+}
@@ -0,0 +1,32 @@
+package programacion.horarios.nucleo.optimizado;
+
+import java.util.SplittableRandom;
+
+/**
+ * Claves aleatorias de 64 bits por sección para el hash de Zobrist: el hash de un
+ * conjunto de secciones es el XOR de sus claves, así que agregar o quitar una
+ * sección cuesta un solo XOR. La semilla es fija para que el hash de un estado
+ * sea el mismo en cada ejecución.
+ */
+public final class TablaZobrist {
+    private static final long SEMILLA = 0x5DEECE66DL;
+
+    private final long[] claves;
+
+    public TablaZobrist(int totalSecciones) {
+        SplittableRandom aleatorio = new SplittableRandom(SEMILLA);
+        this.claves = new long[totalSecciones];
+        for (int i = 0; i < totalSecciones; i++) {
+            claves[i] = aleatorio.nextLong();
+        }
+    }
+
+    public long clave(int idSeccion) {
+        return claves[idSeccion];
+    }
+
+    /** Hash del estado tras agregar (o quitar) la sección. */
+    public long alternar(long hash, int idSeccion) {
+        return hash ^ claves[idSeccion];
+    }
+}
@@ -0,0 +1,30 @@
+package programacion.horarios.optimizador;
+
+import java.util.List;
+import programacion.horarios.constructor.ConstructorHorario;
+import programacion.horarios.nucleo.Materia;
+import programacion.horarios.nucleo.RepositorioMaterias;
+import programacion.horarios.nucleo.Seleccion;
+
+/** Construye con cualquier constructor y pasa el resultado por un {@link MejoradorHorario}. */
+public class ConstructorHorarioConMejora extends ConstructorHorario {
+    private final ConstructorHorario base;
+    private final MejoradorHorario mejorador;
+
+    public ConstructorHorarioConMejora(RepositorioMaterias repositorio, String nombreGrupoObjetivo,
+                                       ConstructorHorario base, MejoradorHorario mejorador) {
+        super(repositorio, nombreGrupoObjetivo);
+        this.base = base;
+        this.mejorador = mejorador;
+    }
+
+    @Override
+    public List<Seleccion> construir() {
+        return mejorador.mejorar(base.construir(), nombreGrupoObjetivo);
+    }
+
+    @Override
+    protected boolean validarRestricciones(List<Materia> seleccionadas) {
+        return true; // el mejorador solo acepta estados sin choques
+    }
+}
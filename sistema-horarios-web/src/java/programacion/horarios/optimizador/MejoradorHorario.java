@@ -0,0 +1,9 @@
+package programacion.horarios.optimizador;
+
+import java.util.List;
+import programacion.horarios.nucleo.Seleccion;
+
+/** Etapa de post-optimización: recibe un horario ya construido y devuelve uno igual o mejor. */
+public interface MejoradorHorario {
+    List<Seleccion> mejorar(List<Seleccion> horario, String nombreGrupoObjetivo);
+}
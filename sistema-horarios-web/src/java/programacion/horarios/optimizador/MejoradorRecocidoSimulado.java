@@ -0,0 +1,247 @@
+package programacion.horarios.optimizador;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import programacion.horarios.estrategia.EstrategiaCocienteDeSumas;
+import programacion.horarios.estrategia.EstrategiaEvaluacion;
+import programacion.horarios.nucleo.Materia;
+import programacion.horarios.nucleo.RegistroIdentificadores;
+import programacion.horarios.nucleo.RepositorioMaterias;
+import programacion.horarios.nucleo.Seleccion;
+import programacion.horarios.nucleo.optimizado.MatrizConflictos;
+
+/**
+ * Post-optimización por recocido simulado. El estado asigna a cada materia del
+ * catálogo una sección o ninguna, siempre sin choques; se maximiza primero la
+ * cobertura y después el puntaje de la estrategia. Movimientos:
+ * <ul>
+ *   <li>reemplazo: otra sección de la misma materia, si no choca con nada;</li>
+ *   <li>intercambio: si la nueva sección choca con una sola materia, esa materia
+ *       cambia también de sección (o se queda sin ella si no hay alternativa libre).</li>
+ * </ul>
+ * Cada sección lleva la cuenta de cuántas asignadas chocan con ella, así que saber si
+ * un movimiento es válido cuesta O(1); con estrategias que son cociente de sumas el
+ * puntaje también se actualiza en O(1). La semilla hace reproducible cada corrida.
+ */
+public class MejoradorRecocidoSimulado implements MejoradorHorario {
+    public static final long SIN_LIMITE_TIEMPO = Long.MAX_VALUE;
+    private static final double PESO_COBERTURA = 100.0; // una materia más pesa más que cualquier puntaje (0-10)
+    private static final double TEMPERATURA_INICIAL = 1.0;
+    private static final double TEMPERATURA_FINAL = 1e-3;
+    private static final int ITERACIONES_ENTRE_RELOJ = 256;
+
+    private final RepositorioMaterias repositorio;
+    private final EstrategiaEvaluacion estrategia;
+    private final int maxIteraciones;
+    private final long maxMillis;
+    private final long semilla;
+
+    public MejoradorRecocidoSimulado(RepositorioMaterias repositorio, EstrategiaEvaluacion estrategia,
+                                     int maxIteraciones, long maxMillis, long semilla) {
+        if (maxIteraciones < 0 || maxMillis < 0) {
+            throw new IllegalArgumentException("Los límites de iteraciones y tiempo no pueden ser negativos");
+        }
+        this.repositorio = repositorio;
+        this.estrategia = estrategia;
+        this.maxIteraciones = maxIteraciones;
+        this.maxMillis = maxMillis;
+        this.semilla = semilla;
+    }
+
+    @Override
+    public List<Seleccion> mejorar(List<Seleccion> horario, String nombreGrupoObjetivo) {
+        Estado estado = new Estado();
+        RegistroIdentificadores registro = repositorio.obtenerRegistro();
+        for (Seleccion seleccion : horario) {
+            int id = registro.idSeccion(seleccion.asignada());
+            if (id < 0) continue; // fuera del catálogo: no se puede mover
+            int materia = registro.materiaDeSeccion(id);
+            if (estado.seccion[materia] < 0 && estado.bloqueos(id, materia) == 0) {
+                estado.poner(materia, id);
+            }
+        }
+
+        int[] mejor = estado.seccion.clone();
+        double mejorValor = estado.valor();
+        double valorActual = mejorValor;
+        SplittableRandom aleatorio = new SplittableRandom(semilla);
+        long limite = maxMillis == SIN_LIMITE_TIEMPO ? Long.MAX_VALUE : System.nanoTime() + maxMillis * 1_000_000L;
+
+        for (int iteracion = 0; iteracion < maxIteraciones && estado.totalMaterias > 0; iteracion++) {
+            if (iteracion % ITERACIONES_ENTRE_RELOJ == 0 && System.nanoTime() - limite > 0) break;
+            double temperatura = TEMPERATURA_INICIAL
+                * Math.pow(TEMPERATURA_FINAL / TEMPERATURA_INICIAL, (double) iteracion / maxIteraciones);
+
+            int materia = aleatorio.nextInt(estado.totalMaterias);
+            int[] secciones = registro.seccionesDeMateria(materia);
+            int nueva = secciones[aleatorio.nextInt(secciones.length)];
+            if (nueva == estado.seccion[materia]) continue;
+
+            int bloqueos = estado.bloqueos(nueva, materia);
+            int otraMateria = -1;
+            int otraNueva = -1;
+            if (bloqueos == 1) {
+                otraMateria = estado.materiaQueChoca(nueva, materia);
+                int[] alternativas = registro.seccionesDeMateria(otraMateria);
+                int candidata = alternativas[aleatorio.nextInt(alternativas.length)];
+                if (estado.libreTrasMover(candidata, otraMateria, materia, nueva)) {
+                    otraNueva = candidata;
+                }
+            } else if (bloqueos > 1) {
+                continue;
+            }
+
+            double valorNuevo = estado.valorTras(materia, nueva, otraMateria, otraNueva);
+            double delta = valorNuevo - valorActual;
+            if (delta >= 0 || aleatorio.nextDouble() < Math.exp(delta / temperatura)) {
+                if (otraMateria >= 0) estado.quitar(otraMateria);
+                estado.quitar(materia);
+                estado.poner(materia, nueva);
+                if (otraNueva >= 0) estado.poner(otraMateria, otraNueva);
+                valorActual = valorNuevo;
+                if (valorActual > mejorValor) {
+                    estado.recalcularSumas(); // evita que el error de redondeo se acumule
+                    valorActual = estado.valor();
+                    mejorValor = valorActual;
+                    mejor = estado.seccion.clone();
+                }
+            }
+        }
+
+        List<Seleccion> resultado = new ArrayList<>();
+        for (int id : mejor) {
+            if (id < 0) continue;
+            Materia seccion = registro.seccion(id);
+            resultado.add(new Seleccion(seccion.clonarConGrupo(nombreGrupoObjetivo), seccion.obtenerGrupo()));
+        }
+        return resultado;
+    }
+
+    /** Asignación actual con contadores de choques y sumas para deltas en O(1). */
+    private final class Estado {
+        final RegistroIdentificadores registro = repositorio.obtenerRegistro();
+        final MatrizConflictos matriz = repositorio.obtenerMatrizConflictos();
+        final int totalMaterias = registro.totalMaterias();
+        final int[] seccion = new int[totalMaterias];              // -1: materia sin sección
+        final int[] choques = new int[registro.totalSecciones()];  // asignadas que chocan con cada sección
+        final EstrategiaCocienteDeSumas cociente =
+            estrategia instanceof EstrategiaCocienteDeSumas c ? c : null;
+        final boolean separable = cociente != null;
+        final double[] numeradores;
+        final double[] denominadores;
+        double sumaNumerador;
+        double sumaDenominador;
+        int cubiertas;
+
+        Estado() {
+            Arrays.fill(seccion, -1);
+            numeradores = new double[registro.totalSecciones()];
+            denominadores = new double[registro.totalSecciones()];
+            if (separable) {
+                for (int id = 0; id < numeradores.length; id++) {
+                    numeradores[id] = cociente.numerador(registro.seccion(id));
+                    denominadores[id] = cociente.denominador(registro.seccion(id));
+                }
+            }
+        }
+
+        // Asignadas que chocan con id, sin contar la sección actual de su propia materia
+        int bloqueos(int id, int materia) {
+            int actual = seccion[materia];
+            return choques[id] - (actual >= 0 && matriz.hayConflicto(id, actual) ? 1 : 0);
+        }
+
+        // ¿Queda libre la sección de otraMateria si además materia pasa a nueva y otraMateria suelta la suya?
+        boolean libreTrasMover(int candidata, int otraMateria, int materia, int nueva) {
+            if (candidata == seccion[otraMateria]) return false;
+            int actual = seccion[materia];
+            int restantes = bloqueos(candidata, otraMateria)
+                - (actual >= 0 && matriz.hayConflicto(candidata, actual) ? 1 : 0)
+                + (matriz.hayConflicto(candidata, nueva) ? 1 : 0);
+            return restantes == 0;
+        }
+
+        int materiaQueChoca(int id, int materia) {
+            for (int m = 0; m < totalMaterias; m++) {
+                if (m != materia && seccion[m] >= 0 && matriz.hayConflicto(id, seccion[m])) {
+                    return m;
+                }
+            }
+            throw new IllegalStateException("Contador de choques desincronizado para la sección " + id);
+        }
+
+        void poner(int materia, int id) {
+            seccion[materia] = id;
+            matriz.sumarFila(id, choques, 1);
+            sumaNumerador += numeradores[id];
+            sumaDenominador += denominadores[id];
+            cubiertas++;
+        }
+
+        void quitar(int materia) {
+            int id = seccion[materia];
+            if (id < 0) return;
+            seccion[materia] = -1;
+            matriz.sumarFila(id, choques, -1);
+            sumaNumerador -= numeradores[id];
+            sumaDenominador -= denominadores[id];
+            cubiertas--;
+        }
+
+        void recalcularSumas() {
+            sumaNumerador = 0;
+            sumaDenominador = 0;
+            for (int id : seccion) {
+                if (id < 0) continue;
+                sumaNumerador += numeradores[id];
+                sumaDenominador += denominadores[id];
+            }
+        }
+
+        double valor() {
+            return valorTras(-1, -1, -1, -1);
+        }
+
+        /** Valor si materia pasa a nueva y otraMateria (si no es -1) pasa a otraNueva (-1: sin sección). */
+        double valorTras(int materia, int nueva, int otraMateria, int otraNueva) {
+            int nuevasCubiertas = cubiertas;
+            double puntaje;
+            if (separable) {
+                double numerador = sumaNumerador;
+                double denominador = sumaDenominador;
+                for (int k = 0; k < 2; k++) {
+                    int m = k == 0 ? materia : otraMateria;
+                    int id = k == 0 ? nueva : otraNueva;
+                    if (m < 0) continue;
+                    int vieja = seccion[m];
+                    if (vieja >= 0) {
+                        numerador -= numeradores[vieja];
+                        denominador -= denominadores[vieja];
+                        nuevasCubiertas--;
+                    }
+                    if (id >= 0) {
+                        numerador += numeradores[id];
+                        denominador += denominadores[id];
+                        nuevasCubiertas++;
+                    }
+                }
+                puntaje = denominador == 0 ? 0.0 : numerador / denominador;
+            } else {
+                // Estrategia no separable (p. ej. máx-mín): se evalúa el horario completo
+                List<Materia> materias = new ArrayList<>(totalMaterias);
+                nuevasCubiertas = 0;
+                for (int m = 0; m < totalMaterias; m++) {
+                    int id = m == materia ? nueva : m == otraMateria ? otraNueva : seccion[m];
+                    if (id >= 0) {
+                        materias.add(registro.seccion(id));
+                        nuevasCubiertas++;
+                    }
+                }
+                puntaje = estrategia.evaluar(materias);
+            }
+            return nuevasCubiertas * PESO_COBERTURA + puntaje;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package programacion.horarios.optimizador;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import programacion.horarios.estrategia.EstrategiaEvaluacion;
+import programacion.horarios.nucleo.Materia;
+import programacion.horarios.nucleo.RegistroIdentificadores;
+import programacion.horarios.nucleo.RepositorioMaterias;
+import programacion.horarios.nucleo.optimizado.MatrizConflictos;
+
+/**
+ * Preprocesamiento del catálogo para una estrategia: dentro de cada materia se descarta
+ * toda sección B para la que exista otra A que choca con un subconjunto de las secciones
+ * ajenas con las que choca B y que, según {@link EstrategiaEvaluacion#puedeSustituir},
+ * nunca baja el puntaje al tomar su lugar. Cambiar B por A en cualquier horario lo deja
+ * válido y no peor, así que el óptimo no cambia y los constructores ramifican menos.
+ * Si A y B se sustituyen mutuamente son equivalentes y se conserva la primera del catálogo.
+ * <p>
+ * Cada sección conservada recuerda las que representa. Como las dominadas estrictamente
+ * desaparecen, la reducción sirve para los constructores que entregan un solo horario,
+ * no para listar los K mejores. Los constructores que filtran alguna materia por su cuenta
+ * la recuperan completa con {@link #restaurarMaterias}.
+ */
+public final class ReduccionSecciones {
+    private final RepositorioMaterias original;
+    private final boolean[] descartada; // por id de sección del original
+    private final RepositorioMaterias repositorio;
+    private final Map<Materia, List<Materia>> descartadasPor = new HashMap<>();
+    private final Map<Materia, List<Materia>> equivalentesDe = new HashMap<>();
+    private int totalDescartadas;
+
+    private ReduccionSecciones(RepositorioMaterias original, EstrategiaEvaluacion estrategia) {
+        RegistroIdentificadores registro = original.obtenerRegistro();
+        MatrizConflictos matriz = original.obtenerMatrizConflictos();
+        this.original = original;
+        this.descartada = new boolean[registro.totalSecciones()];
+
+        for (int materia = 0; materia < registro.totalMaterias(); materia++) {
+            int[] secciones = registro.seccionesDeMateria(materia);
+            if (secciones.length < 2) continue;
+
+            // Choques con secciones de otras materias: los de la propia no limitan nada
+            long[][] filas = new long[secciones.length][];
+            for (int i = 0; i < secciones.length; i++) {
+                filas[i] = matriz.copiarFila(secciones[i]);
+                for (int propia : secciones) MatrizConflictos.quitar(filas[i], propia);
+            }
+            for (int b = 0; b < secciones.length; b++) {
+                for (int a = 0; a < secciones.length; a++) {
+                    if (a != b && gana(a, b, secciones, filas, registro, estrategia)) {
+                        descartada[secciones[b]] = true;
+                        break;
+                    }
+                }
+            }
+            // "gana" es un orden estricto: toda descartada tiene una conservada que le gana
+            for (int b = 0; b < secciones.length; b++) {
+                if (!descartada[secciones[b]]) continue;
+                for (int a = 0; a < secciones.length; a++) {
+                    if (!descartada[secciones[a]] && gana(a, b, secciones, filas, registro, estrategia)) {
+                        registrar(registro.seccion(secciones[a]), registro.seccion(secciones[b]),
+                            cubre(b, a, secciones, filas, registro, estrategia));
+                        break;
+                    }
+                }
+            }
+        }
+        this.repositorio = totalDescartadas == 0 ? original
+            : original.filtrar(m -> !descartada[registro.idSeccion(m)]);
+    }
+
+    public static ReduccionSecciones reducir(RepositorioMaterias repositorio, EstrategiaEvaluacion estrategia) {
+        return new ReduccionSecciones(repositorio, estrategia);
+    }
+
+    // A gana a B si lo cubre y, cuando se cubren mutuamente, va antes en el catálogo
+    private static boolean gana(int a, int b, int[] secciones, long[][] filas,
+                                RegistroIdentificadores registro, EstrategiaEvaluacion estrategia) {
+        return cubre(a, b, secciones, filas, registro, estrategia)
+            && (a < b || !cubre(b, a, secciones, filas, registro, estrategia));
+    }
+
+    private static boolean cubre(int a, int b, int[] secciones, long[][] filas,
+                                 RegistroIdentificadores registro, EstrategiaEvaluacion estrategia) {
+        long[] filaA = filas[a];
+        long[] filaB = filas[b];
+        for (int i = 0; i < filaA.length; i++) {
+            if ((filaA[i] & ~filaB[i]) != 0) return false;
+        }
+        return estrategia.puedeSustituir(registro.seccion(secciones[a]), registro.seccion(secciones[b]));
+    }
+
+    private void registrar(Materia conservada, Materia descartada, boolean equivalente) {
+        descartadasPor.computeIfAbsent(conservada, k -> new ArrayList<>()).add(descartada);
+        if (equivalente) {
+            equivalentesDe.computeIfAbsent(conservada, k -> new ArrayList<>()).add(descartada);
+        }
+        totalDescartadas++;
+    }
+
+    /** Catálogo reducido (el original si no se descartó nada). */
+    public RepositorioMaterias obtenerRepositorio() {
+        return repositorio;
+    }
+
+    /**
+     * Catálogo reducido con todas las secciones de {@code materias} de vuelta, para los
+     * constructores que filtran esas materias por su cuenta (p. ej. por profesor fijado).
+     * El repositorio es nuevo en cada llamada y no se guarda.
+     */
+    public RepositorioMaterias restaurarMaterias(Set<String> materias) {
+        RegistroIdentificadores registro = original.obtenerRegistro();
+        boolean faltaAlguna = materias.stream()
+            .flatMap(nombre -> original.obtenerPorNombreMateria(nombre).stream())
+            .anyMatch(m -> descartada[registro.idSeccion(m)]);
+        if (!faltaAlguna) return repositorio;
+        return original.filtrar(m -> !descartada[registro.idSeccion(m)]
+            || materias.contains(m.obtenerNombreMateria()));
+    }
+
+    /** Secciones descartadas a favor de {@code conservada}; acepta también vistas de grupo. */
+    public List<Materia> obtenerDescartadas(Materia conservada) {
+        return List.copyOf(descartadasPor.getOrDefault(conservada.obtenerOriginal(), List.of()));
+    }
+
+    /** Descartadas que valen exactamente lo mismo que {@code conservada}: alternativas de igual puntaje. */
+    public List<Materia> obtenerEquivalentes(Materia conservada) {
+        return List.copyOf(equivalentesDe.getOrDefault(conservada.obtenerOriginal(), List.of()));
+    }
+
+    public int obtenerTotalDescartadas() {
+        return totalDescartadas;
+    }
+}
@@ -0,0 +1,377 @@
+package programacion.horarios.servicio;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiPredicate;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Cache con peso máximo, desalojo W-TinyLFU y expiración por rueda de temporizadores.
+ * <p>
+ * Las entradas nuevas llegan a una ventana LRU pequeña (1% del peso). Al salir de ella
+ * intentan entrar al segmento principal, que es un LRU segmentado: un acierto en la zona
+ * de prueba asciende la entrada a la zona protegida (80% del principal). Si no cabe, la
+ * candidata que sale de la ventana se compara con las víctimas más antiguas del principal
+ * que tendrían que salir para hacerle lugar: entra solo si su frecuencia estimada, según
+ * un count-min sketch que envejece a la mitad cada cierto número de accesos, supera a la
+ * de todas ellas. Si no, se rechaza y no sale ninguna. Así una ráfaga de claves que se piden una sola
+ * vez no desplaza a las que se repiten.
+ * <p>
+ * Cada entrada vence {@code ttl} después de escrita, nunca antes y a lo más un tick
+ * después. La rueda tiene una ranura por tick y al avanzar descarta las entradas de las
+ * ranuras vencidas; avanza en cada operación y
+ * con {@link #expirarVencidas()}, que el dueño puede llamar periódicamente para liberar
+ * memoria aunque no haya tráfico. Todas las operaciones toman el mismo candado.
+ */
+public final class CacheAcotada<K, V> {
+    private static final int RANURAS = 64;
+    private static final double FRACCION_VENTANA = 0.01;
+    private static final double FRACCION_PROTEGIDA = 0.80;
+
+    private enum Zona { VENTANA, PRUEBA, PROTEGIDA }
+
+    private static final class Entrada<K, V> {
+        final K clave;
+        final V valor;
+        final int peso;
+        final long tickVencimiento;
+        Zona zona = Zona.VENTANA;
+
+        Entrada(K clave, V valor, int peso, long tickVencimiento) {
+            this.clave = clave;
+            this.valor = valor;
+            this.peso = peso;
+            this.tickVencimiento = tickVencimiento;
+        }
+    }
+
+    private final long pesoMaximo;
+    private final long pesoMaximoVentana;
+    private final long pesoMaximoProtegida;
+    private final ToIntFunction<V> pesador;
+    private final LongSupplier reloj;
+    private final long nanosPorTick;
+    private final long nanosVida;
+
+    private final Map<K, Entrada<K, V>> entradas = new HashMap<>();
+    // LinkedHashMap en orden de inserción: reinsertar una clave la lleva al final (la más reciente)
+    private final LinkedHashMap<K, Entrada<K, V>> ventana = new LinkedHashMap<>();
+    private final LinkedHashMap<K, Entrada<K, V>> prueba = new LinkedHashMap<>();
+    private final LinkedHashMap<K, Entrada<K, V>> protegida = new LinkedHashMap<>();
+    private final SketchFrecuencia sketch;
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final Set<Entrada<K, V>>[] rueda = new Set[RANURAS];
+    private long tickActual;
+
+    private long pesoVentana;
+    private long pesoPrueba;
+    private long pesoProtegida;
+
+    private long aciertos;
+    private long fallos;
+    private long desalojos;
+    private long expiradas;
+    private long rechazadas;
+    private long invalidadas;
+
+    public CacheAcotada(long pesoMaximo, Duration ttl, ToIntFunction<V> pesador) {
+        this(pesoMaximo, ttl, pesador, System::nanoTime);
+    }
+
+    public CacheAcotada(long pesoMaximo, Duration ttl, ToIntFunction<V> pesador, LongSupplier reloj) {
+        if (pesoMaximo <= 0) {
+            throw new IllegalArgumentException("El peso máximo debe ser positivo: " + pesoMaximo);
+        }
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("El tiempo de vida debe ser positivo: " + ttl);
+        }
+        this.pesoMaximo = pesoMaximo;
+        this.pesoMaximoVentana = Math.max(1, (long) (pesoMaximo * FRACCION_VENTANA));
+        this.pesoMaximoProtegida = (long) ((pesoMaximo - pesoMaximoVentana) * FRACCION_PROTEGIDA);
+        this.pesador = pesador;
+        this.reloj = reloj;
+        // Una vida cabe en RANURAS - 1 ticks; con el redondeo del vencimiento, a lo más RANURAS
+        // por delante del actual, así que cada entrada se revisa justo en su tick
+        this.nanosVida = ttl.toNanos();
+        this.nanosPorTick = Math.max(1, dividirHaciaArriba(nanosVida, RANURAS - 1));
+        this.sketch = new SketchFrecuencia(pesoMaximo);
+        for (int i = 0; i < RANURAS; i++) {
+            rueda[i] = new LinkedHashSet<>();
+        }
+        this.tickActual = tickDe(reloj.getAsLong());
+    }
+
+    public synchronized V obtener(K clave) {
+        avanzarRueda();
+        sketch.incrementar(clave);
+        Entrada<K, V> entrada = entradas.get(clave);
+        if (entrada == null) {
+            fallos++;
+            return null;
+        }
+        aciertos++;
+        registrarAcceso(entrada);
+        return entrada.valor;
+    }
+
+    /**
+     * Como {@link #obtener}, pero sin contar acierto ni fallo y sin registrar el acceso:
+     * sirve para volver a mirar una clave que la misma petición ya pidió.
+     */
+    public synchronized V consultar(K clave) {
+        avanzarRueda();
+        Entrada<K, V> entrada = entradas.get(clave);
+        return entrada != null ? entrada.valor : null;
+    }
+
+    /** Guarda el valor; si pesa más que toda la cache no se guarda. */
+    public synchronized void guardar(K clave, V valor) {
+        long ahora = reloj.getAsLong();
+        avanzarRueda(ahora);
+        sketch.incrementar(clave);
+        Entrada<K, V> anterior = entradas.get(clave);
+        if (anterior != null) quitar(anterior);
+
+        int peso = Math.max(1, pesador.applyAsInt(valor));
+        if (peso > pesoMaximo) {
+            rechazadas++;
+            return;
+        }
+        // Primer tick que empieza en o después del vencimiento, no el que lo contiene
+        long tickVencimiento = -Math.floorDiv(-(ahora + nanosVida), nanosPorTick);
+        Entrada<K, V> entrada = new Entrada<>(clave, valor, peso, tickVencimiento);
+        entradas.put(clave, entrada);
+        ventana.put(clave, entrada);
+        pesoVentana += peso;
+        rueda[ranura(entrada.tickVencimiento)].add(entrada);
+
+        while (pesoVentana > pesoMaximoVentana && ventana.size() > 1) {
+            Entrada<K, V> saliente = primera(ventana);
+            ventana.remove(saliente.clave);
+            pesoVentana -= saliente.peso;
+            admitir(saliente);
+        }
+        // La ventana sola puede pasarse del total mientras el principal está vacío
+        while (obtenerPeso() > pesoMaximo) {
+            quitar(primera(!prueba.isEmpty() ? prueba : !protegida.isEmpty() ? protegida : ventana));
+            desalojos++;
+        }
+    }
+
+    public synchronized void invalidar(K clave) {
+        Entrada<K, V> entrada = entradas.get(clave);
+        if (entrada != null) quitar(entrada);
+    }
+
+    /** Quita las entradas que cumplen {@code condicion} y devuelve cuántas fueron. */
+    public synchronized int invalidarSi(BiPredicate<K, V> condicion) {
+        List<Entrada<K, V>> quitadas = new ArrayList<>();
+        for (Entrada<K, V> entrada : entradas.values()) {
+            if (condicion.test(entrada.clave, entrada.valor)) quitadas.add(entrada);
+        }
+        quitadas.forEach(this::quitar);
+        invalidadas += quitadas.size();
+        return quitadas.size();
+    }
+
+    public synchronized void limpiar() {
+        entradas.clear();
+        ventana.clear();
+        prueba.clear();
+        protegida.clear();
+        for (Set<Entrada<K, V>> ranura : rueda) ranura.clear();
+        pesoVentana = pesoPrueba = pesoProtegida = 0;
+    }
+
+    /** Descarta las entradas vencidas aunque nadie consulte la cache. */
+    public synchronized void expirarVencidas() {
+        avanzarRueda();
+    }
+
+    private void registrarAcceso(Entrada<K, V> entrada) {
+        switch (entrada.zona) {
+            case VENTANA -> ventana.put(entrada.clave, ventana.remove(entrada.clave));
+            case PROTEGIDA -> protegida.put(entrada.clave, protegida.remove(entrada.clave));
+            case PRUEBA -> {
+                prueba.remove(entrada.clave);
+                pesoPrueba -= entrada.peso;
+                entrada.zona = Zona.PROTEGIDA;
+                protegida.put(entrada.clave, entrada);
+                pesoProtegida += entrada.peso;
+                // Lo que sobra de protegida vuelve a prueba como la más reciente
+                while (pesoProtegida > pesoMaximoProtegida && protegida.size() > 1) {
+                    Entrada<K, V> degradada = primera(protegida);
+                    protegida.remove(degradada.clave);
+                    pesoProtegida -= degradada.peso;
+                    degradada.zona = Zona.PRUEBA;
+                    prueba.put(degradada.clave, degradada);
+                    pesoPrueba += degradada.peso;
+                }
+            }
+        }
+    }
+
+    // Filtro TinyLFU: la que sale de la ventana solo entra si es más frecuente que cada
+    // víctima que haría falta sacar. Se decide antes de quitar nada: o salen todas o ninguna
+    private void admitir(Entrada<K, V> candidata) {
+        int frecuencia = sketch.estimar(candidata.clave);
+        long exceso = pesoVentana + pesoPrueba + pesoProtegida + candidata.peso - pesoMaximo;
+        List<Entrada<K, V>> victimas = new ArrayList<>();
+        for (LinkedHashMap<K, Entrada<K, V>> zona : List.of(prueba, protegida)) {
+            for (Iterator<Entrada<K, V>> it = zona.values().iterator(); exceso > 0 && it.hasNext(); ) {
+                Entrada<K, V> victima = it.next();
+                // En empate se queda la que ya estaba, para que una clave nueva no barra a las frecuentes
+                if (frecuencia <= sketch.estimar(victima.clave)) {
+                    desalojos++;
+                    entradas.remove(candidata.clave);
+                    rueda[ranura(candidata.tickVencimiento)].remove(candidata);
+                    return;
+                }
+                victimas.add(victima);
+                exceso -= victima.peso;
+            }
+        }
+        for (Entrada<K, V> victima : victimas) {
+            quitar(victima);
+            desalojos++;
+        }
+        candidata.zona = Zona.PRUEBA;
+        prueba.put(candidata.clave, candidata);
+        pesoPrueba += candidata.peso;
+    }
+
+    private void avanzarRueda() {
+        avanzarRueda(reloj.getAsLong());
+    }
+
+    private void avanzarRueda(long nanos) {
+        long ahora = tickDe(nanos);
+        if (ahora <= tickActual) return;
+        // Pasada más de una vuelta completa, cada ranura se revisa una sola vez
+        long desde = Math.max(tickActual + 1, ahora - RANURAS + 1);
+        for (long tick = desde; tick <= ahora; tick++) {
+            Iterator<Entrada<K, V>> it = rueda[ranura(tick)].iterator();
+            while (it.hasNext()) {
+                Entrada<K, V> entrada = it.next();
+                if (entrada.tickVencimiento <= ahora) {
+                    it.remove();
+                    quitarDeZona(entrada);
+                    expiradas++;
+                }
+            }
+        }
+        tickActual = ahora;
+    }
+
+    private void quitar(Entrada<K, V> entrada) {
+        rueda[ranura(entrada.tickVencimiento)].remove(entrada);
+        quitarDeZona(entrada);
+    }
+
+    private void quitarDeZona(Entrada<K, V> entrada) {
+        entradas.remove(entrada.clave);
+        switch (entrada.zona) {
+            case VENTANA -> {
+                ventana.remove(entrada.clave);
+                pesoVentana -= entrada.peso;
+            }
+            case PRUEBA -> {
+                prueba.remove(entrada.clave);
+                pesoPrueba -= entrada.peso;
+            }
+            case PROTEGIDA -> {
+                protegida.remove(entrada.clave);
+                pesoProtegida -= entrada.peso;
+            }
+        }
+    }
+
+    private long tickDe(long nanos) {
+        return Math.floorDiv(nanos, nanosPorTick);
+    }
+
+    private static int ranura(long tick) {
+        return (int) (tick & (RANURAS - 1));
+    }
+
+    private static <K, V> Entrada<K, V> primera(LinkedHashMap<K, Entrada<K, V>> zona) {
+        return zona.values().iterator().next();
+    }
+
+    private static long dividirHaciaArriba(long a, long b) {
+        return (a + b - 1) / b;
+    }
+
+    public synchronized int obtenerTamano() { return entradas.size(); }
+    public synchronized long obtenerPeso() { return pesoVentana + pesoPrueba + pesoProtegida; }
+    public long obtenerPesoMaximo() { return pesoMaximo; }
+    public synchronized long obtenerAciertos() { return aciertos; }
+    public synchronized long obtenerFallos() { return fallos; }
+    public synchronized long obtenerDesalojos() { return desalojos; }
+    public synchronized long obtenerExpiradas() { return expiradas; }
+    public synchronized long obtenerRechazadas() { return rechazadas; }
+    public synchronized long obtenerInvalidadas() { return invalidadas; }
+
+    /**
+     * Count-min sketch de 4 filas con contadores saturados en 15. Cuando los
+     * incrementos llegan a diez veces la capacidad, todos los contadores se dividen entre
+     * dos: la frecuencia refleja lo reciente y no todo el historial.
+     */
+    private static final class SketchFrecuencia {
+        private static final int FILAS = 4;
+        private static final int MAXIMO = 15;
+        private static final long[] SEMILLAS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L
+        };
+
+        private final byte[][] contadores;
+        private final int mascara;
+        private final long limiteMuestra;
+        private long incrementos;
+
+        SketchFrecuencia(long capacidad) {
+            int ancho = Integer.highestOneBit((int) Math.min(1 << 24, Math.max(16, capacidad)) - 1) << 1;
+            this.contadores = new byte[FILAS][ancho];
+            this.mascara = ancho - 1;
+            this.limiteMuestra = 10L * Math.max(16, capacidad);
+        }
+
+        void incrementar(Object clave) {
+            int hash = clave.hashCode();
+            for (int fila = 0; fila < FILAS; fila++) {
+                int i = indice(hash, fila);
+                if (contadores[fila][i] < MAXIMO) contadores[fila][i]++;
+            }
+            if (++incrementos >= limiteMuestra) envejecer();
+        }
+
+        int estimar(Object clave) {
+            int hash = clave.hashCode();
+            int minimo = MAXIMO;
+            for (int fila = 0; fila < FILAS; fila++) {
+                minimo = Math.min(minimo, contadores[fila][indice(hash, fila)]);
+            }
+            return minimo;
+        }
+
+        private void envejecer() {
+            for (byte[] fila : contadores) {
+                for (int i = 0; i < fila.length; i++) fila[i] >>= 1;
+            }
+            incrementos /= 2;
+        }
+
+        private int indice(int hash, int fila) {
+            long mezcla = (hash + SEMILLAS[fila]) * SEMILLAS[fila];
+            return (int) (mezcla >>> 32) & mascara;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package programacion.horarios.servicio;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Segundo nivel de la cache de horarios: un archivo local proyectado en memoria al que
+ * solo se agregan registros, para que un reinicio no empiece con la cache vacía.
+ * <p>
+ * Cada registro es
+ * {@code [longitud][crc][versión][disposición][puntaje][bytes clave][clave][n][n ids de sección]}.
+ * La longitud se escribe al final: un registro a medio escribir queda con longitud cero
+ * y la lectura se detiene ahí, igual que ante un CRC que no cuadra. Al abrir se recorre
+ * el archivo y se indexan solo los registros de la versión y disposición del catálogo
+ * actual (los ids de sección son posiciones en el catálogo, así que también importa el
+ * orden); el resto se ignora. Si una clave aparece varias veces gana la última.
+ * <p>
+ * Cuando el archivo se llena se deja de agregar; lo ya escrito se sigue leyendo. Para
+ * empezar de nuevo basta con borrar el archivo con el servidor detenido.
+ * <p>
+ * El archivo se abre con un cerrojo exclusivo: dos instancias que escribieran cada una en
+ * su propio {@code fin} mezclarían registros. Si otra ya lo tiene, abrir falla.
+ */
+final class CacheDisco {
+    private static final Logger LOGGER = Logger.getLogger(CacheDisco.class.getName());
+    static final long CAPACIDAD_POR_DEFECTO = 64L << 20;
+    private static final int CABECERA = Integer.BYTES * 2; // longitud y crc
+    private static final int FIJOS = Long.BYTES * 2 + Double.BYTES + Integer.BYTES * 2;
+    private static final int LARGO_CLAVE = Long.BYTES * 2 + Double.BYTES; // desde el inicio del cuerpo
+
+    private final Path archivo;
+    private final FileChannel canal;
+    private final MappedByteBuffer mapa;
+    private final Map<String, Integer> indice = new HashMap<>(); // clave -> posición del registro
+    private long version;
+    private long disposicion;
+    private int fin; // posición donde va el siguiente registro
+    private boolean lleno;
+    private long escritos;
+    private long leidos;
+
+    CacheDisco(Path archivo, long capacidad, long version, long disposicion) throws IOException {
+        if (capacidad <= CABECERA + FIJOS || capacidad > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Capacidad de archivo inválida: " + capacidad);
+        }
+        this.archivo = archivo;
+        this.canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        try {
+            if (!tomarCerrojo()) {
+                throw new IOException("El archivo " + archivo + " ya lo usa otra instancia");
+            }
+            // Un archivo creado con otra capacidad se respeta tal cual está
+            long tamano = Math.max(canal.size(), capacidad);
+            this.mapa = canal.map(FileChannel.MapMode.READ_WRITE, 0, Math.min(tamano, Integer.MAX_VALUE));
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+        reindexar(version, disposicion);
+    }
+
+    // tryLock devuelve null si lo tiene otro proceso y lanza si lo tiene esta misma JVM
+    private boolean tomarCerrojo() throws IOException {
+        try {
+            return canal.tryLock() != null;
+        } catch (OverlappingFileLockException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Recorre el archivo e indexa los registros del catálogo indicado. Se llama al abrir
+     * y cada vez que el servicio cambia de catálogo.
+     */
+    synchronized void reindexar(long version, long disposicion) {
+        this.version = version;
+        this.disposicion = disposicion;
+        indice.clear();
+        int posicion = 0;
+        while (posicion + CABECERA + FIJOS <= mapa.capacity()) {
+            int longitud = mapa.getInt(posicion);
+            if (longitud < FIJOS || (long) posicion + CABECERA + longitud > mapa.capacity()) break;
+            if (mapa.getInt(posicion + Integer.BYTES) != crc(posicion + CABECERA, longitud)) break;
+            int cuerpo = posicion + CABECERA;
+            if (mapa.getLong(cuerpo) == version && mapa.getLong(cuerpo + Long.BYTES) == disposicion) {
+                indice.put(leerClave(cuerpo), posicion);
+            }
+            posicion = cuerpo + longitud;
+        }
+        fin = posicion;
+        lleno = false;
+    }
+
+    /**
+     * Horario guardado para la clave en el catálogo actual, o null si no hay. El catálogo
+     * esperado se vuelve a comprobar por si la búsqueda se cruzó con un cambio de catálogo.
+     */
+    synchronized HorarioEnDisco buscar(String clave, long version, long disposicion) {
+        Integer posicion = indice.get(clave);
+        if (posicion == null) return null;
+        int cuerpo = posicion + CABECERA;
+        if (mapa.getLong(cuerpo) != version || mapa.getLong(cuerpo + Long.BYTES) != disposicion) return null;
+        int p = cuerpo + LARGO_CLAVE;
+        p += Integer.BYTES + mapa.getInt(p);
+        int[] ids = new int[mapa.getInt(p)];
+        for (int i = 0; i < ids.length; i++) {
+            p += Integer.BYTES;
+            ids[i] = mapa.getInt(p);
+        }
+        leidos++;
+        return new HorarioEnDisco(ids, mapa.getDouble(cuerpo + Long.BYTES * 2));
+    }
+
+    /**
+     * Agrega un horario calculado con el catálogo {@code version}/{@code disposicion}. Si
+     * no es el catálogo actual se escribe igual, pero no se indexa.
+     */
+    synchronized void agregar(String clave, int[] ids, double puntaje, long version, long disposicion) {
+        byte[] bytesClave = clave.getBytes(StandardCharsets.UTF_8);
+        long longitud = (long) FIJOS + bytesClave.length + (long) Integer.BYTES * ids.length;
+        if (fin + CABECERA + longitud > mapa.capacity()) {
+            if (!lleno) {
+                lleno = true;
+                LOGGER.warning("Cache en disco llena (" + archivo + ", " + mapa.capacity()
+                    + " bytes): ya no se agregan horarios");
+            }
+            return;
+        }
+        int cuerpo = fin + CABECERA;
+        int p = cuerpo;
+        mapa.putLong(p, version);
+        p += Long.BYTES;
+        mapa.putLong(p, disposicion);
+        p += Long.BYTES;
+        mapa.putDouble(p, puntaje);
+        p += Double.BYTES;
+        mapa.putInt(p, bytesClave.length);
+        p += Integer.BYTES;
+        mapa.put(p, bytesClave);
+        p += bytesClave.length;
+        mapa.putInt(p, ids.length);
+        p += Integer.BYTES;
+        for (int id : ids) {
+            mapa.putInt(p, id);
+            p += Integer.BYTES;
+        }
+        mapa.putInt(fin + Integer.BYTES, crc(cuerpo, (int) longitud));
+        mapa.putInt(fin, (int) longitud); // al final: hasta aquí el registro no existe
+
+        if (version == this.version && disposicion == this.disposicion) indice.put(clave, fin);
+        fin = cuerpo + (int) longitud;
+        escritos++;
+    }
+
+    private String leerClave(int cuerpo) {
+        byte[] bytes = new byte[mapa.getInt(cuerpo + LARGO_CLAVE)];
+        mapa.get(cuerpo + LARGO_CLAVE + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int crc(int desde, int longitud) {
+        CRC32 crc = new CRC32();
+        crc.update(mapa.slice(desde, longitud));
+        return (int) crc.getValue();
+    }
+
+    record HorarioEnDisco(int[] idsSecciones, double puntaje) {}
+
+    synchronized int obtenerEntradas() { return indice.size(); }
+    synchronized int obtenerBytesUsados() { return fin; }
+    synchronized long obtenerEscritos() { return escritos; }
+    synchronized long obtenerLeidos() { return leidos; }
+
+    /** Baja al disco lo escrito y cierra el archivo, lo que también suelta el cerrojo. */
+    synchronized void cerrar() {
+        try {
+            mapa.force();
+            canal.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo cerrar la cache en disco " + archivo, e);
+        }
+    }
+}
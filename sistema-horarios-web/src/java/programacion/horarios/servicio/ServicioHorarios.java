@@ -1,108 +1,378 @@
 package programacion.horarios.servicio;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.time.LocalDateTime;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import programacion.horarios.constructor.*;
 import programacion.horarios.estrategia.*;
 import programacion.horarios.nucleo.*;
 
 public class ServicioHorarios {
-    private final RepositorioMaterias repositorio;
-    private final Map<String, ResultadoCache> cache;
+    private static final Logger LOGGER = Logger.getLogger(ServicioHorarios.class.getName());
+    public static final long PESO_MAXIMO_POR_DEFECTO = 50_000; // en selecciones guardadas
+    public static final Duration TTL_POR_DEFECTO = Duration.ofHours(1);
+    
+    private volatile RepositorioMaterias repositorio;
+    // Acotada por peso: nombres de grupo inventados por los clientes ya no la hacen crecer sin fin
+    private final CacheAcotada<ClaveProblema, ResultadoGuardado> cache;
+    private final Object cerrojoCatalogo = new Object(); // guardar un resultado vs. cambiar de catálogo
+    private final ScheduledExecutorService limpieza;
+    private final ConcurrentHashMap<ClaveProblema, CalculoEnCurso> calculosEnCurso = new ConcurrentHashMap<>();
+    private final AtomicLong coalescidas = new AtomicLong();
+    private final CacheDisco disco; // null: sin nivel en disco
     
     public ServicioHorarios(RepositorioMaterias repositorio) {
+        this(repositorio, PESO_MAXIMO_POR_DEFECTO, TTL_POR_DEFECTO);
+    }
+    
+    public ServicioHorarios(RepositorioMaterias repositorio, long pesoMaximoCache, Duration ttl) {
+        this(repositorio, pesoMaximoCache, ttl, null);
+    }
+    
+    /**
+     * Con {@code archivoCache} distinto de null, los horarios calculados también se
+     * guardan en ese archivo local ({@link CacheDisco}) y sobreviven a un reinicio. Si
+     * el archivo no se puede abrir, o ya lo usa otra instancia, el servicio sigue solo con
+     * la cache en memoria.
+     */
+    public ServicioHorarios(RepositorioMaterias repositorio, long pesoMaximoCache, Duration ttl, Path archivoCache) {
         this.repositorio = repositorio;
-        this.cache = new ConcurrentHashMap<>();
+        this.disco = abrirDisco(archivoCache, repositorio.obtenerVersion());
+        this.cache = new CacheAcotada<>(pesoMaximoCache, ttl, guardado -> guardado.selecciones().size());
+        this.limpieza = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "limpieza-cache-horarios");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        // Sin esto las entradas vencidas esperarían a la siguiente petición para soltarse
+        long periodo = Math.max(1, ttl.toMillis() / 60);
+        limpieza.scheduleAtFixedRate(cache::expirarVencidas, periodo, periodo, TimeUnit.MILLISECONDS);
+    }
+    
+    private static CacheDisco abrirDisco(Path archivo, VersionCatalogo version) {
+        if (archivo == null) return null;
+        try {
+            CacheDisco disco = new CacheDisco(archivo, CacheDisco.CAPACIDAD_POR_DEFECTO, version.obtenerValor(),
+                version.obtenerDisposicion());
+            LOGGER.info("Cache en disco " + archivo + ": " + disco.obtenerEntradas()
+                + " horarios del catálogo " + version);
+            return disco;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "No se pudo abrir la cache en disco " + archivo
+                + "; se sigue solo con la cache en memoria", e);
+            return null;
+        }
     }
     
     // Método principal - reemplaza el uso directo del constructor
     public List<Seleccion> crearHorario(String grupoObjetivo, EstrategiaEvaluacion estrategia) {
-        String claveCache = generarClaveCache(grupoObjetivo, estrategia);
-        
-        ResultadoCache resultado = cache.get(claveCache);
-        if (resultado != null && !estaExpirado(resultado)) {
-            System.out.println("✓ Cache hit - resultado en <1ms");
-            return resultado.selecciones;
-        }
-        
-        // Calcular si no está en cache
-        long inicio = System.currentTimeMillis();
-        ConstructorHorario constructor = new ConstructorHorarioMaximaCobertura(
-            repositorio, grupoObjetivo, estrategia
-        );
-        List<Seleccion> nuevasSelecciones = constructor.construir();
-        long tiempo = System.currentTimeMillis() - inicio;
-        
-        // Guardar en cache
-        cache.put(claveCache, new ResultadoCache(nuevasSelecciones, LocalDateTime.now()));
-        System.out.println("⚠ Cache miss - calculado en " + tiempo + "ms");
-        
-        return nuevasSelecciones;
+        return crearHorario(grupoObjetivo, "maxcoverage", estrategia,
+            () -> new ConstructorHorarioMaximaCobertura(repositorio, grupoObjetivo, estrategia).construir());
+    }
+    
+    /**
+     * Horario calculado por {@code calculo}, que debe corresponder al algoritmo y la
+     * estrategia indicados: ambos forman parte de la clave de la cache. El grupo no: el
+     * horario es el mismo para cualquier nombre y solo se le estampa al devolverlo.
+     */
+    public List<Seleccion> crearHorario(String grupoObjetivo, String algoritmo, EstrategiaEvaluacion estrategia,
+                                        Supplier<List<Seleccion>> calculo) {
+        return obtenerOCalcular(generarClaveCache(algoritmo, estrategia), grupoObjetivo, "", estrategia, calculo);
     }
     
     public List<Seleccion> crearHorarioConProfesoresFijados(String grupoObjetivo,
                                                            Map<String, String> profesoresFijados) {
-        String claveCache = generarClaveCacheFijados(grupoObjetivo, profesoresFijados);
-        
-        ResultadoCache resultado = cache.get(claveCache);
-        if (resultado != null && !estaExpirado(resultado)) {
-            System.out.println("✓ Cache hit (profesores fijados) - resultado en <1ms");
-            return resultado.selecciones;
+        return crearHorarioConProfesoresFijados(grupoObjetivo, profesoresFijados,
+            () -> new ConstructorHorarioProfesoresFijados(repositorio, grupoObjetivo, profesoresFijados).construir());
+    }
+    
+    public List<Seleccion> crearHorarioConProfesoresFijados(String grupoObjetivo, Map<String, String> profesoresFijados,
+                                                           Supplier<List<Seleccion>> calculo) {
+        return obtenerOCalcular(generarClaveCacheFijados(profesoresFijados), grupoObjetivo,
+            " (profesores fijados)", new EstrategiaPonderadaPorMinutos(), calculo);
+    }
+    
+    /**
+     * Cache y, si falla, cálculo de una sola vez por clave: mientras alguien calcula una
+     * clave, los que piden la misma esperan su resultado en lugar de repetir el trabajo.
+     * Si el cálculo lanza una excepción, la reciben todos los que esperaban y nada se
+     * guarda; la siguiente petición vuelve a intentarlo.
+     * <p>
+     * Se guardan y se comparten las secciones del catálogo; cada quien recibe vistas con
+     * el nombre de su propio grupo. Un cálculo en curso sobre una versión anterior del
+     * catálogo no se comparte ni se guarda.
+     * <p>
+     * Entre la cache en memoria y el cálculo está la del disco, si hay: lo que se
+     * encuentra ahí sube a memoria, y lo calculado se agrega al archivo con
+     * {@code estrategia} como puntaje.
+     */
+    private List<Seleccion> obtenerOCalcular(ClaveProblema clave, String grupoObjetivo, String etiqueta,
+                                             EstrategiaEvaluacion estrategia, Supplier<List<Seleccion>> calculo) {
+        ResultadoGuardado guardado = cache.obtener(clave);
+        if (guardado != null) {
+            System.out.println("✓ Cache hit" + etiqueta + " - resultado en <1ms");
+            return estamparGrupo(guardado.selecciones(), grupoObjetivo);
         }
         
-        long inicio = System.currentTimeMillis();
-        ConstructorHorario constructor = new ConstructorHorarioProfesoresFijados(
-            repositorio, grupoObjetivo, profesoresFijados
-        );
-        List<Seleccion> nuevasSelecciones = constructor.construir();
-        long tiempo = System.currentTimeMillis() - inicio;
-        
-        cache.put(claveCache, new ResultadoCache(nuevasSelecciones, LocalDateTime.now()));
-        System.out.println("⚠ Cache miss (profesores fijados) - calculado en " + tiempo + "ms");
+        RepositorioMaterias catalogo = repositorio;
+        VersionCatalogo version = catalogo.obtenerVersion();
+        List<Seleccion> deDisco = leerDeDisco(clave, catalogo);
+        if (deDisco != null) {
+            guardarSiVigente(clave, deDisco, version);
+            System.out.println("✓ Cache hit en disco" + etiqueta);
+            return estamparGrupo(deDisco, grupoObjetivo);
+        }
         
-        return nuevasSelecciones;
+        CalculoEnCurso propio = new CalculoEnCurso(version);
+        CalculoEnCurso enCurso = calculosEnCurso.putIfAbsent(clave, propio);
+        if (enCurso != null && enCurso.version.equals(version)) {
+            return estamparGrupo(esperar(clave, enCurso), grupoObjetivo);
+        }
+        boolean compartido = enCurso == null;
+        try {
+            // El cálculo anterior pudo terminar entre el primer fallo y putIfAbsent
+            ResultadoGuardado recienGuardado = compartido ? cache.consultar(clave) : null;
+            if (recienGuardado != null) {
+                propio.resultado.complete(recienGuardado.selecciones());
+                System.out.println("✓ Cache hit" + etiqueta + " - guardado por un cálculo que acaba de terminar");
+                return estamparGrupo(recienGuardado.selecciones(), grupoObjetivo);
+            }
+            long inicio = System.currentTimeMillis();
+            List<Seleccion> nuevasSelecciones = sinGrupo(calculo.get());
+            long tiempo = System.currentTimeMillis() - inicio;
+            
+            // Primero la cache y después el aviso: quien llegue luego la encuentra llena. El
+            // disco va al final para que los que esperan no dependan de él
+            guardarSiVigente(clave, nuevasSelecciones, version);
+            if (compartido) propio.resultado.complete(nuevasSelecciones);
+            agregarADisco(clave, nuevasSelecciones, catalogo, estrategia);
+            System.out.println("⚠ Cache miss" + etiqueta + " - calculado en " + tiempo + "ms");
+            return estamparGrupo(nuevasSelecciones, grupoObjetivo);
+        } catch (RuntimeException | Error e) {
+            if (compartido) propio.resultado.completeExceptionally(e);
+            throw e;
+        } finally {
+            if (compartido) calculosEnCurso.remove(clave, propio);
+        }
+    }
+    
+    private void guardarSiVigente(ClaveProblema clave, List<Seleccion> selecciones, VersionCatalogo version) {
+        synchronized (cerrojoCatalogo) {
+            if (!repositorio.obtenerVersion().equals(version)) return; // el catálogo cambió durante el cálculo
+            Map<String, Long> huellas = new HashMap<>();
+            for (String materia : clave.materias()) {
+                huellas.put(materia, version.obtenerHuellasPorMateria().get(materia));
+            }
+            cache.guardar(clave, new ResultadoGuardado(selecciones, huellas));
+        }
+    }
+    
+    private List<Seleccion> leerDeDisco(ClaveProblema clave, RepositorioMaterias catalogo) {
+        if (disco == null) return null;
+        VersionCatalogo version = catalogo.obtenerVersion();
+        CacheDisco.HorarioEnDisco horario = disco.buscar(clave.serializar(), version.obtenerValor(),
+            version.obtenerDisposicion());
+        if (horario == null) return null;
+        RegistroIdentificadores registro = catalogo.obtenerRegistro();
+        List<Seleccion> selecciones = new ArrayList<>(horario.idsSecciones().length);
+        for (int id : horario.idsSecciones()) {
+            if (id < 0 || id >= registro.totalSecciones()) return null; // no debería pasar con la misma disposición
+            Materia seccion = registro.seccion(id);
+            selecciones.add(new Seleccion(seccion, seccion.obtenerGrupo()));
+        }
+        return List.copyOf(selecciones);
+    }
+    
+    private void agregarADisco(ClaveProblema clave, List<Seleccion> selecciones, RepositorioMaterias catalogo,
+                               EstrategiaEvaluacion estrategia) {
+        if (disco == null) return;
+        RegistroIdentificadores registro = catalogo.obtenerRegistro();
+        int[] ids = new int[selecciones.size()];
+        List<Materia> materias = new ArrayList<>(selecciones.size());
+        for (int i = 0; i < ids.length; i++) {
+            Materia seccion = selecciones.get(i).asignada();
+            ids[i] = registro.idSeccion(seccion);
+            // Una sección fuera del catálogo (o de otro grupo de origen) no se puede reconstruir por id
+            if (ids[i] < 0 || !seccion.obtenerGrupo().equals(selecciones.get(i).grupoOrigen())) return;
+            materias.add(seccion);
+        }
+        VersionCatalogo version = catalogo.obtenerVersion();
+        try {
+            disco.agregar(clave.serializar(), ids, estrategia.evaluar(materias), version.obtenerValor(),
+                version.obtenerDisposicion());
+        } catch (RuntimeException e) {
+            // El horario ya está calculado y en memoria: perder la copia en disco no es un error de la petición
+            LOGGER.log(Level.WARNING, "No se pudo agregar a la cache en disco " + clave.serializar(), e);
+        }
+    }
+    
+    /**
+     * Cambia el catálogo del servicio. Solo se descartan los resultados que dependían de
+     * alguna materia agregada, quitada o modificada; el resto sigue en la cache. Devuelve
+     * cuántos se descartaron.
+     */
+    public int actualizarCatalogo(RepositorioMaterias nuevo) {
+        synchronized (cerrojoCatalogo) {
+            VersionCatalogo anterior = repositorio.obtenerVersion();
+            VersionCatalogo siguiente = nuevo.obtenerVersion();
+            Set<String> cambiadas = siguiente.materiasCambiadas(anterior);
+            repositorio = nuevo;
+            // Aunque el contenido sea el mismo, otro orden cambia los ids de sección
+            if (disco != null && siguiente.obtenerDisposicion() != anterior.obtenerDisposicion()) {
+                disco.reindexar(siguiente.obtenerValor(), siguiente.obtenerDisposicion());
+            }
+            if (cambiadas.isEmpty()) return 0;
+            
+            int invalidadas = cache.invalidarSi((clave, guardado) -> !guardado.vigenteEn(siguiente));
+            System.out.println("Catálogo " + anterior + " → " + siguiente + ": " + cambiadas.size()
+                + " materias cambiadas, " + invalidadas + " resultados descartados");
+            return invalidadas;
+        }
+    }
+    
+    public VersionCatalogo obtenerVersionCatalogo() {
+        return repositorio.obtenerVersion();
+    }
+    
+    private static List<Seleccion> sinGrupo(List<Seleccion> selecciones) {
+        List<Seleccion> canonicas = new ArrayList<>(selecciones.size());
+        for (Seleccion seleccion : selecciones) {
+            canonicas.add(new Seleccion(seleccion.asignada().obtenerOriginal(), seleccion.grupoOrigen()));
+        }
+        return List.copyOf(canonicas);
+    }
+    
+    private static List<Seleccion> estamparGrupo(List<Seleccion> canonicas, String grupoObjetivo) {
+        List<Seleccion> estampadas = new ArrayList<>(canonicas.size());
+        for (Seleccion seleccion : canonicas) {
+            estampadas.add(new Seleccion(seleccion.asignada().clonarConGrupo(grupoObjetivo), seleccion.grupoOrigen()));
+        }
+        return estampadas;
+    }
+    
+    private List<Seleccion> esperar(ClaveProblema clave, CalculoEnCurso enCurso) {
+        enCurso.esperando.incrementAndGet();
+        coalescidas.incrementAndGet();
+        try {
+            return enCurso.resultado.get();
+        } catch (InterruptedException e) {
+            // Solo se retira este hilo; el cálculo sigue para los demás
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Se interrumpió la espera del horario " + clave);
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof RuntimeException excepcion) throw excepcion;
+            if (causa instanceof Error error) throw error;
+            throw new CompletionException(causa);
+        } finally {
+            enCurso.esperando.decrementAndGet();
+        }
+    }
+    
+    /** Por cada clave que se está calculando, cuántas peticiones esperan su resultado. */
+    public Map<String, Integer> obtenerEsperasEnCurso() {
+        Map<String, Integer> esperas = new TreeMap<>();
+        calculosEnCurso.forEach((clave, enCurso) -> esperas.put(clave.describir(), enCurso.esperando.get()));
+        return esperas;
     }
     
     public void limpiarCache() {
-        cache.clear();
+        cache.limpiar();
         System.out.println("Cache limpiado");
     }
     
     public String obtenerEstadisticasCache() {
-        long total = cache.size();
-        long validas = cache.values().stream()
-            .mapToLong(r -> estaExpirado(r) ? 0 : 1)
-            .sum();
-        
-        return String.format("Cache: %d total, %d válidas", total, validas);
+        return String.format("Cache (catálogo %s): %d entradas, peso %d/%d, %d aciertos, %d fallos, %d desalojadas, "
+            + "%d expiradas, %d invalidadas, %d esperas en cálculos ajenos",
+            repositorio.obtenerVersion(), cache.obtenerTamano(), cache.obtenerPeso(), cache.obtenerPesoMaximo(),
+            cache.obtenerAciertos(), cache.obtenerFallos(), cache.obtenerDesalojos(), cache.obtenerExpiradas(),
+            cache.obtenerInvalidadas(), coalescidas.get())
+            + (disco == null ? "" : String.format("; disco: %d horarios vigentes, %d bytes, %d leídos, %d escritos",
+                disco.obtenerEntradas(), disco.obtenerBytesUsados(), disco.obtenerLeidos(), disco.obtenerEscritos()));
+    }
+    
+    /** Detiene la limpieza periódica de la cache y cierra el archivo de la cache en disco. */
+    public void cerrar() {
+        limpieza.shutdownNow();
+        if (disco != null) disco.cerrar();
     }
     
-    private String generarClaveCache(String grupo, EstrategiaEvaluacion estrategia) {
-        return grupo + "|" + estrategia.obtenerNombreEstrategia();
+    private ClaveProblema generarClaveCache(String algoritmo, EstrategiaEvaluacion estrategia) {
+        return new ClaveProblema(algoritmo.toLowerCase(), estrategia.obtenerNombreEstrategia(),
+            repositorio.obtenerTodosLosNombresMaterias(), Map.of());
     }
     
-    private String generarClaveCacheFijados(String grupo, Map<String, String> profesoresFijados) {
-        String profesoresStr = profesoresFijados.entrySet().stream()
-            .sorted(Map.Entry.comparingByKey())
-            .map(e -> e.getKey() + ":" + e.getValue())
-            .collect(Collectors.joining(","));
+    private static final class CalculoEnCurso {
+        final CompletableFuture<List<Seleccion>> resultado = new CompletableFuture<>();
+        final AtomicInteger esperando = new AtomicInteger();
+        final VersionCatalogo version;
         
-        return grupo + "|FIJADOS|" + profesoresStr;
+        CalculoEnCurso(VersionCatalogo version) {
+            this.version = version;
+        }
+    }
+    
+    /**
+     * Horario guardado junto con la huella, al momento de calcularlo, de cada materia de
+     * la que dependía: las requeridas, que incluyen las de las secciones elegidas.
+     */
+    private record ResultadoGuardado(List<Seleccion> selecciones, Map<String, Long> huellas) {
+        boolean vigenteEn(VersionCatalogo version) {
+            Map<String, Long> actuales = version.obtenerHuellasPorMateria();
+            for (Map.Entry<String, Long> huella : huellas.entrySet()) {
+                if (!Objects.equals(huella.getValue(), actuales.get(huella.getKey()))) return false;
+            }
+            return true;
+        }
     }
     
-    private boolean estaExpirado(ResultadoCache resultado) {
-        return LocalDateTime.now().minusHours(1).isAfter(resultado.timestamp);
+    private ClaveProblema generarClaveCacheFijados(Map<String, String> profesoresFijados) {
+        return new ClaveProblema("profesores-fijados", "", repositorio.obtenerTodosLosNombresMaterias(),
+            profesoresFijados);
     }
     
-    private static class ResultadoCache {
-        final List<Seleccion> selecciones;
-        final LocalDateTime timestamp;
+    /**
+     * Lo único de lo que depende un horario calculado: algoritmo, estrategia, materias
+     * del catálogo (de ellas sale el conjunto requerido) y profesores fijados. Las
+     * colecciones se copian ordenadas para que el orden de llegada no cambie la clave.
+     */
+    private record ClaveProblema(String algoritmo, String estrategia, SortedSet<String> materias,
+                                 SortedMap<String, String> fijados) {
+        ClaveProblema(String algoritmo, String estrategia, Set<String> materias, Map<String, String> fijados) {
+            this(algoritmo, estrategia, Collections.unmodifiableSortedSet(new TreeSet<>(materias)),
+                Collections.unmodifiableSortedMap(new TreeMap<>(fijados)));
+        }
+        
+        String describir() {
+            String base = algoritmo + "|" + estrategia;
+            if (fijados.isEmpty()) return base;
+            return base + "|" + fijados.entrySet().stream()
+                .map(e -> e.getKey() + ":" + e.getValue())
+                .collect(Collectors.joining(","));
+        }
         
-        ResultadoCache(List<Seleccion> selecciones, LocalDateTime timestamp) {
-            this.selecciones = new ArrayList<>(selecciones);
-            this.timestamp = timestamp;
+        /** Forma completa y sin ambigüedad, para la clave del archivo de la cache en disco. */
+        String serializar() {
+            StringJoiner partes = new StringJoiner("\u0000");
+            partes.add(algoritmo).add(estrategia).add(String.valueOf(materias.size()));
+            materias.forEach(partes::add);
+            fijados.forEach((materia, profesor) -> partes.add(materia).add(profesor));
+            return partes.toString();
         }
     }
-}
\ No newline at end of file
+}
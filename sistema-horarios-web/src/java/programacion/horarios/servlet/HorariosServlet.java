@@ -2,9 +2,11 @@ package programacion.horarios.servlet;
 
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 import javax.servlet.ServletException;
@@ -23,6 +25,12 @@ import programacion.horarios.constructor.ConstructorHorarioMaximaCobertura;
 import programacion.horarios.constructor.ConstructorHorarioProfesoresFijados;
 import programacion.horarios.constructor.optimizado.ConstructorHorarioOptimizado;
 import programacion.horarios.algoritmo.ConstructorHorarioAStar;
+import programacion.horarios.algoritmo.ConstructorHorarioAnytime;
+import programacion.horarios.algoritmo.ConstructorHorarioPorComponentes;
+import programacion.horarios.algoritmo.ConstructorHorarioRamificacionAcotacion;
+import programacion.horarios.algoritmo.EnumeradorMejoresHorarios;
+import programacion.horarios.algoritmo.HorarioPuntuado;
+import programacion.horarios.algoritmo.ResultadoBusqueda;
 import programacion.horarios.estrategia.EstrategiaEvaluacion;
 import programacion.horarios.estrategia.EstrategiaMediaArmonica;
 import programacion.horarios.estrategia.EstrategiaPonderadaPorMinutos;
@@ -34,6 +42,9 @@ import programacion.horarios.nucleo.Materia;
 import programacion.horarios.nucleo.Profesor;
 import programacion.horarios.nucleo.RepositorioMaterias;
 import programacion.horarios.nucleo.Seleccion;
+import programacion.horarios.optimizador.ConstructorHorarioConMejora;
+import programacion.horarios.optimizador.MejoradorRecocidoSimulado;
+import programacion.horarios.optimizador.ReduccionSecciones;
 import programacion.horarios.servicio.ServicioHorarios;
 
 @WebServlet(name = "HorariosServlet", urlPatterns = {"/api/horarios"})
@@ -54,16 +65,30 @@ public class HorariosServlet extends HttpServlet {
     }   
     private static final Logger LOGGER = Logger.getLogger(HorariosServlet.class.getName());
     private static final int MAX_GRUPO_NAME_LENGTH = 50;
+    private static final int MAX_TAMANO_PAGINA = 20;
+    // Cada petición vuelve a enumerar desde el primero: las páginas lejanas cuestan una búsqueda por horario saltado
+    private static final int MAX_HORARIOS_SALTADOS = 200;
+    private static final long PRESUPUESTO_ANYTIME_MS = 2000; // tiempo máximo del algoritmo "anytime"
+    private static final int ITERACIONES_RECOCIDO = 50_000;
+    private static final long PRESUPUESTO_RECOCIDO_MS = 500;
+    private static final long SEMILLA_RECOCIDO = 42L; // fija: la misma petición da el mismo horario
+    private static final long SEMILLA_REINICIOS = 42L; // idem: un caso lento se puede reproducir
+    // Ruta del archivo de la cache de horarios en disco; sin ella la cache vive solo en memoria
+    private static final String PROPIEDAD_ARCHIVO_CACHE = "horarios.cache.archivo";
     
-    private RepositorioMaterias repositorio;
+    private volatile RepositorioMaterias repositorio;
     private ServicioHorarios servicioHorarios;
+    private final Map<String, ReduccionSecciones> reducciones = new ConcurrentHashMap<>();
     private Gson gson;
     
     @Override
     public void init() throws ServletException {
         try {
             this.repositorio = FabricaDatos.crearRepositorioPorDefecto();
-            this.servicioHorarios = new ServicioHorarios(repositorio);
+            repositorio.precalcularDominios(); // una vez por carga: las peticiones ya no los recalculan
+            String archivoCache = System.getProperty(PROPIEDAD_ARCHIVO_CACHE);
+            this.servicioHorarios = new ServicioHorarios(repositorio, ServicioHorarios.PESO_MAXIMO_POR_DEFECTO,
+                ServicioHorarios.TTL_POR_DEFECTO, archivoCache == null ? null : Path.of(archivoCache));
             this.gson = new GsonBuilder()
                     .setPrettyPrinting()
                     .serializeNulls()
@@ -106,6 +131,9 @@ public class HorariosServlet extends HttpServlet {
                 case "horario":
                     obtenerHorarioGrupo(request, response);
                     break;
+                case "alternativas":
+                    obtenerAlternativas(request, response);
+                    break;
                 default:
                     response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                     escribirError(response, "Acción no válida: " + action);
@@ -141,6 +169,9 @@ protected void doPost(HttpServletRequest request, HttpServletResponse response)
             case "validar":
                 validarHorarios(request, response);
                 break;
+            case "recargar-catalogo":
+                recargarCatalogo(response);
+                break;
             default:
                 response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                 escribirError(response, "Acción no válida: " + action);
@@ -420,6 +451,7 @@ protected void doPost(HttpServletRequest request, HttpServletResponse response)
             estadisticas.put("totalMaterias", totalMaterias);
             estadisticas.put("calificacionPromedio", Math.round(calificacionPromedio * 100.0) / 100.0);
             estadisticas.put("totalRegistros", repositorio.obtenerMaterias().size());
+            estadisticas.put("internado", repositorio.obtenerInternador().obtenerEstadisticas());
             
             resultado.put("success", true);
             resultado.put("estadisticas", estadisticas);
@@ -438,6 +470,7 @@ protected void doPost(HttpServletRequest request, HttpServletResponse response)
             Map<String, Object> resultado = new HashMap<>();
             resultado.put("success", true);
             resultado.put("cache", servicioHorarios.obtenerEstadisticasCache());
+            resultado.put("esperasEnCurso", servicioHorarios.obtenerEsperasEnCurso());
             
             escribirRespuesta(response, resultado);
             
@@ -447,6 +480,74 @@ protected void doPost(HttpServletRequest request, HttpServletResponse response)
         }
     }
     
+    // Página de los mejores horarios completos, de mayor a menor puntuación
+    private void obtenerAlternativas(HttpServletRequest request, HttpServletResponse response) 
+            throws IOException {
+        
+        String nombreGrupo = obtenerParametroSeguro(request, "nombreGrupo");
+        if (nombreGrupo == null) nombreGrupo = "ALTERNATIVA";
+        if (!validarNombreGrupo(nombreGrupo)) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            escribirError(response, "Nombre de grupo inválido");
+            return;
+        }
+        
+        int pagina;
+        int tamanoPagina;
+        try {
+            String paginaParam = obtenerParametroSeguro(request, "pagina");
+            String tamanoParam = obtenerParametroSeguro(request, "tamanoPagina");
+            pagina = paginaParam != null ? Integer.parseInt(paginaParam) : 0;
+            tamanoPagina = tamanoParam != null ? Integer.parseInt(tamanoParam) : 5;
+        } catch (NumberFormatException e) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            escribirError(response, "Parámetros de paginación inválidos");
+            return;
+        }
+        if (pagina < 0 || tamanoPagina < 1 || tamanoPagina > MAX_TAMANO_PAGINA) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            escribirError(response, "La página debe ser >= 0 y el tamaño entre 1 y " + MAX_TAMANO_PAGINA);
+            return;
+        }
+        int saltados;
+        try {
+            saltados = Math.multiplyExact(pagina, tamanoPagina);
+        } catch (ArithmeticException e) {
+            saltados = Integer.MAX_VALUE;
+        }
+        if (saltados > MAX_HORARIOS_SALTADOS) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            escribirError(response, "Solo se pueden consultar los primeros " + MAX_HORARIOS_SALTADOS
+                + " horarios alternativos antes de la página pedida");
+            return;
+        }
+        
+        EstrategiaEvaluacion estrategia = obtenerEstrategia(obtenerParametroSeguro(request, "estrategia"));
+        // Catálogo completo: la reducción solo conserva el óptimo, y aquí también importan los demás
+        EnumeradorMejoresHorarios enumerador = new EnumeradorMejoresHorarios(repositorio, nombreGrupo, estrategia);
+        
+        // Las páginas anteriores se vuelven a enumerar (una búsqueda por horario), pero no se convierten
+        enumerador.saltar(saltados);
+        List<Map<String, Object>> alternativas = new ArrayList<>();
+        for (HorarioPuntuado horario : enumerador.siguientes(tamanoPagina)) {
+            Map<String, Object> alternativa = new HashMap<>();
+            alternativa.put("puntuacion", Math.round(horario.puntaje() * 100.0) / 100.0);
+            alternativa.put("materias", horario.selecciones().stream()
+                .map(this::convertirSeleccionAMapa)
+                .collect(java.util.stream.Collectors.toList()));
+            alternativas.add(alternativa);
+        }
+        
+        Map<String, Object> resultado = new HashMap<>();
+        resultado.put("success", true);
+        resultado.put("estrategia", estrategia.obtenerNombreEstrategia());
+        resultado.put("pagina", pagina);
+        resultado.put("tamanoPagina", tamanoPagina);
+        resultado.put("alternativas", alternativas);
+        resultado.put("hayMas", enumerador.hasNext());
+        escribirRespuesta(response, resultado);
+    }
+    
     private void crearGrupo(HttpServletRequest request, HttpServletResponse response) 
             throws IOException {
         
@@ -478,10 +579,20 @@ protected void doPost(HttpServletRequest request, HttpServletResponse response)
             EstrategiaEvaluacion estrategia = obtenerEstrategia(estrategiaParam);
             ConstructorHorario constructor = obtenerConstructor(algoritmoParam, nombreGrupo, estrategia);
             
-            List<Seleccion> horario = constructor.construir();
+            Map<String, Object> resultado = new HashMap<>();
+            List<Seleccion> horario;
+            if (constructor instanceof ConstructorHorarioAnytime anytime) {
+                ResultadoBusqueda busqueda = anytime.construirConResultado();
+                horario = busqueda.selecciones();
+                resultado.put("optimoDemostrado", busqueda.optimoDemostrado());
+                resultado.put("cortadaPorTiempo", busqueda.cortadaPorTiempo());
+            } else {
+                // Peticiones iguales simultáneas comparten un solo cálculo
+                horario = servicioHorarios.crearHorario(nombreGrupo, algoritmoParam, estrategia,
+                    constructor::construir);
+            }
             long tiempoTotal = System.currentTimeMillis() - tiempoInicio;
             
-            Map<String, Object> resultado = new HashMap<>();
             resultado.put("success", true);
             resultado.put("nombreGrupo", nombreGrupo);
             resultado.put("estrategia", estrategiaParam);
@@ -550,10 +661,14 @@ protected void doPost(HttpServletRequest request, HttpServletResponse response)
                 return;
             }
             
-            ConstructorHorario constructor = new ConstructorHorarioProfesoresFijados(
-                repositorio, nombreGrupo, profesoresFijados);
-            
-            List<Seleccion> horario = constructor.construir();
+            List<Seleccion> horario = servicioHorarios.crearHorarioConProfesoresFijados(
+                nombreGrupo, profesoresFijados, () -> {
+                    // Las materias fijadas recuperan todas sus secciones: su constructor filtra por profesor
+                    RepositorioMaterias catalogo = obtenerReduccion(new EstrategiaPonderadaPorMinutos())
+                        .restaurarMaterias(profesoresFijados.keySet());
+                    return new ConstructorHorarioProfesoresFijados(catalogo, nombreGrupo, profesoresFijados)
+                        .construir();
+                });
             long tiempoTotal = System.currentTimeMillis() - tiempoInicio;
             
             Map<String, Object> resultado = new HashMap<>();
@@ -700,6 +815,29 @@ protected void doPost(HttpServletRequest request, HttpServletResponse response)
         }
     }
     
+    private void recargarCatalogo(HttpServletResponse response) throws IOException {
+        RepositorioMaterias anterior = repositorio;
+        RepositorioMaterias nuevo = FabricaDatos.crearRepositorioPorDefecto();
+        nuevo.precalcularDominios();
+        
+        // Primero el servlet y después el servicio: así nada calculado con el catálogo viejo
+        // queda guardado con la versión nueva
+        repositorio = nuevo;
+        String prefijoVigente = nuevo.obtenerVersion() + "|";
+        reducciones.keySet().removeIf(clave -> !clave.startsWith(prefijoVigente));
+        int descartados = servicioHorarios.actualizarCatalogo(nuevo);
+        
+        Map<String, Object> resultado = new HashMap<>();
+        resultado.put("success", true);
+        resultado.put("versionAnterior", anterior.obtenerVersion().toString());
+        resultado.put("version", nuevo.obtenerVersion().toString());
+        resultado.put("materiasCambiadas", nuevo.obtenerVersion().materiasCambiadas(anterior.obtenerVersion()));
+        resultado.put("resultadosDescartados", descartados);
+        escribirRespuesta(response, resultado);
+        LOGGER.info("Catálogo recargado: versión " + nuevo.obtenerVersion() + ", " + descartados
+            + " resultados descartados de la cache");
+    }
+    
     private void validarHorarios(HttpServletRequest request, HttpServletResponse response) 
             throws IOException {
         
@@ -756,29 +894,82 @@ protected void doPost(HttpServletRequest request, HttpServletResponse response)
             algoritmo = "maxcoverage";
         }
         
+        // Todos los algoritmos trabajan sobre el catálogo sin secciones dominadas
+        RepositorioMaterias catalogo = obtenerReduccion(estrategia).obtenerRepositorio();
         switch (algoritmo.toLowerCase()) {
             case "maxcoverage":
-                return new ConstructorHorarioMaximaCobertura(repositorio, nombreGrupo, estrategia);
+                return new ConstructorHorarioMaximaCobertura(catalogo, nombreGrupo, estrategia);
+            case "maxcoverage-fc":
+                return new ConstructorHorarioMaximaCobertura(catalogo, nombreGrupo, estrategia,
+                    ConstructorHorarioMaximaCobertura.ModoBusqueda.COMPROBACION_ADELANTE);
+            case "maxcoverage-cbj":
+                return new ConstructorHorarioMaximaCobertura(catalogo, nombreGrupo, estrategia,
+                    ConstructorHorarioMaximaCobertura.ModoBusqueda.SALTO_DIRIGIDO);
+            case "maxcoverage-restarts":
+                return new ConstructorHorarioMaximaCobertura(catalogo, nombreGrupo, estrategia,
+                    ConstructorHorarioMaximaCobertura.ModoBusqueda.REINICIOS, SEMILLA_REINICIOS);
             case "optimized":
-                return new ConstructorHorarioOptimizado(repositorio, nombreGrupo);
+                return new ConstructorHorarioOptimizado(catalogo, nombreGrupo);
             case "astar":
-                return new ConstructorHorarioAStar(repositorio, nombreGrupo);
+                return new ConstructorHorarioAStar(catalogo, nombreGrupo);
+            case "astar-bounded":
+                return new ConstructorHorarioAStar(catalogo, nombreGrupo,
+                    ConstructorHorarioAStar.PRESUPUESTO_POR_DEFECTO);
+            case "anytime":
+                return new ConstructorHorarioAnytime(catalogo, nombreGrupo, estrategia,
+                    PRESUPUESTO_ANYTIME_MS);
+            case "branchbound":
+                return new ConstructorHorarioRamificacionAcotacion(catalogo, nombreGrupo, estrategia);
+            case "components":
+                return new ConstructorHorarioPorComponentes(catalogo, nombreGrupo, estrategia);
+            case "optimized-ls":
+                return new ConstructorHorarioConMejora(catalogo, nombreGrupo,
+                    new ConstructorHorarioOptimizado(catalogo, nombreGrupo),
+                    new MejoradorRecocidoSimulado(catalogo, estrategia, ITERACIONES_RECOCIDO,
+                        PRESUPUESTO_RECOCIDO_MS, SEMILLA_RECOCIDO));
             default:
                 LOGGER.warning("Algoritmo desconocido: " + algoritmo + ", usando maxcoverage por defecto");
-                return new ConstructorHorarioMaximaCobertura(repositorio, nombreGrupo, estrategia);
+                return new ConstructorHorarioMaximaCobertura(catalogo, nombreGrupo, estrategia);
         }
     }
     
+    /** Una reducción por versión del catálogo y estrategia; se calcula la primera vez que se pide. */
+    private ReduccionSecciones obtenerReduccion(EstrategiaEvaluacion estrategia) {
+        RepositorioMaterias catalogoActual = repositorio;
+        String clave = catalogoActual.obtenerVersion() + "|" + estrategia.obtenerNombreEstrategia();
+        return reducciones.computeIfAbsent(clave, nombre -> {
+            ReduccionSecciones reduccion = ReduccionSecciones.reducir(catalogoActual, estrategia);
+            reduccion.obtenerRepositorio().precalcularDominios();
+            return reduccion;
+        });
+    }
+    
     private String obtenerNombreAlgoritmo(String algoritmo) {
         if (algoritmo == null) return "Algoritmo Desconocido";
         
         switch (algoritmo.toLowerCase()) {
             case "maxcoverage":
                 return "Máxima Cobertura (Backtracking)";
+            case "maxcoverage-fc":
+                return "Máxima Cobertura (Comprobación hacia adelante + MRV)";
+            case "maxcoverage-cbj":
+                return "Máxima Cobertura (Salto dirigido por conflictos + nogoods)";
+            case "maxcoverage-restarts":
+                return "Máxima Cobertura (Reinicios Luby + salto dirigido)";
             case "optimized":
                 return "Algoritmo Voraz Optimizado";
             case "astar":
                 return "A* Heurístico";
+            case "astar-bounded":
+                return "A* con Memoria Acotada";
+            case "branchbound":
+                return "Ramificación y Acotación Paralela";
+            case "anytime":
+                return "Anytime (Voraz + Ramificación y Acotación)";
+            case "components":
+                return "Ramificación y Acotación por Componentes";
+            case "optimized-ls":
+                return "Voraz Optimizado + Recocido Simulado";
             default:
                 return "Algoritmo: " + algoritmo;
         }
@@ -900,6 +1091,7 @@ protected void doPost(HttpServletRequest request, HttpServletResponse response)
         try {
             if (servicioHorarios != null) {
                 LOGGER.info("Limpiando recursos del servicio de horarios");
+                servicioHorarios.cerrar();
             }
         } catch (Exception e) {
             LOGGER.log(Level.WARNING, "Error al limpiar recursos en destroy()", e);
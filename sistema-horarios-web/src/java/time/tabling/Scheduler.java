@@ -92,6 +92,14 @@ public class Scheduler {
         return out;
     }
 
+    /**
+     * Elige una sección por materia sin choques, en el orden de {@code subjectsOrdered}.
+     * Usa salto dirigido por conflictos: cuando una materia se queda sin opciones se
+     * vuelve directo a la elección más reciente que le quitó alguna, no a la anterior, y
+     * esas elecciones quedan anotadas como nogood para no repetir la combinación.
+     * Devuelve el mismo horario que el retroceso cronológico. Lo que ya esté en
+     * {@code chosen} al empezar (los profesores fijados) no se mueve.
+     */
     private static boolean chooseWithoutOverlap(
             int idx,
             List<String> subjectsOrdered,
@@ -99,32 +107,115 @@ public class Scheduler {
             List<Subjects> chosen,
             List<String> chosenSourceGroups
     ) {
-        if (idx == subjectsOrdered.size()) return true;
+        List<String> pending = subjectsOrdered.subList(idx, subjectsOrdered.size());
+        Backjumper search = new Backjumper(pending, optionsBySubject, chosen);
+        if (search.descend(0) != Backjumper.SUCCESS) return false;
 
-        String subj = subjectsOrdered.get(idx);
-        List<Subjects> options = optionsBySubject.getOrDefault(subj, List.of());
-        if (options.isEmpty()) return false;
+        for (Subjects picked : search.picked) {
+            chosen.add(picked);
+            chosenSourceGroups.add(picked.getGroup());
+        }
+        return true;
+    }
 
-        for (Subjects cand : options) {
-            boolean clash = false;
-            for (Subjects already : chosen) {
-                if (overlapsAnyDay(already, cand)) {
-                    clash = true; break;
+    /** Estado de {@link #chooseWithoutOverlap}: un nivel por materia pendiente. */
+    private static final class Backjumper {
+        static final int SUCCESS = Integer.MAX_VALUE;
+        private static final int MAX_NOGOODS = 10_000;
+        private static final int MAX_NOGOOD_SIZE = 8;
+
+        private final List<List<Subjects>> options = new ArrayList<>();
+        private final List<Subjects> fixed;
+        private final Subjects[] picked;
+        private final BitSet[] conflicts;                  // niveles que le quitaron opciones a cada nivel
+        private final Map<Subjects, Integer> levelOf = new IdentityHashMap<>();
+        private final Map<Subjects, List<Subjects[]>> nogoods = new IdentityHashMap<>();
+        private int learned;
+
+        Backjumper(List<String> subjects, Map<String, List<Subjects>> optionsBySubject, List<Subjects> fixed) {
+            this.fixed = List.copyOf(fixed);
+            this.picked = new Subjects[subjects.size()];
+            this.conflicts = new BitSet[subjects.size()];
+            for (int level = 0; level < subjects.size(); level++) {
+                options.add(optionsBySubject.getOrDefault(subjects.get(level), List.of()));
+                conflicts[level] = new BitSet(subjects.size());
+            }
+        }
+
+        /** SUCCESS si completó todo; si no, el nivel al que hay que volver (-1 = imposible). */
+        int descend(int level) {
+            if (level == picked.length) return SUCCESS;
+            BitSet conflict = conflicts[level];
+            conflict.clear();
+
+            for (Subjects cand : options.get(level)) {
+                if (clashesWithFixed(cand)) continue; // nada de lo que se puede deshacer lo explica
+                int culprit = firstClash(level, cand);
+                if (culprit >= 0) {
+                    conflict.set(culprit);
+                    continue;
                 }
+                if (breaksNogood(cand, conflict)) continue;
+
+                picked[level] = cand;
+                levelOf.put(cand, level);
+                int target = descend(level + 1);
+                if (target == SUCCESS) return SUCCESS;
+                levelOf.remove(cand);
+                if (target < level) return target;
             }
-            if (clash) continue;
 
-            chosen.add(cand);
-            chosenSourceGroups.add(cand.getGroup());
+            learn(conflict);
+            int target = conflict.length() - 1;
+            if (target >= 0) {
+                conflicts[target].or(conflict);
+                conflicts[target].clear(target);
+            }
+            return target;
+        }
 
-            if (chooseWithoutOverlap(idx + 1, subjectsOrdered, optionsBySubject, chosen, chosenSourceGroups)) {
+        private boolean clashesWithFixed(Subjects cand) {
+            for (Subjects already : fixed) {
+                if (overlapsAnyDay(already, cand)) return true;
+            }
+            return false;
+        }
+
+        private int firstClash(int level, Subjects cand) {
+            for (int earlier = 0; earlier < level; earlier++) {
+                if (overlapsAnyDay(picked[earlier], cand)) return earlier;
+            }
+            return -1;
+        }
+
+        private boolean breaksNogood(Subjects cand, BitSet conflict) {
+            for (Subjects[] nogood : nogoods.getOrDefault(cand, List.of())) {
+                boolean complete = true;
+                for (Subjects other : nogood) {
+                    if (other != cand && !levelOf.containsKey(other)) {
+                        complete = false;
+                        break;
+                    }
+                }
+                if (!complete) continue;
+                for (Subjects other : nogood) {
+                    if (other != cand) conflict.set(levelOf.get(other));
+                }
                 return true;
             }
+            return false;
+        }
 
-            chosen.remove(chosen.size() - 1);
-            chosenSourceGroups.remove(chosenSourceGroups.size() - 1);
+        // Las elecciones de los niveles culpables juntas dejan sin opciones al que falló
+        private void learn(BitSet conflict) {
+            int size = conflict.cardinality();
+            if (size == 0 || size > MAX_NOGOOD_SIZE || learned >= MAX_NOGOODS) return;
+            Subjects[] nogood = conflict.stream().mapToObj(level -> picked[level]).toArray(Subjects[]::new);
+            for (Subjects member : nogood) {
+                nogoods.computeIfAbsent(member, k -> new ArrayList<>()).add(nogood);
+            }
+            learned++;
         }
-        return false;
     }
 
     private static void dfsMinWeighted(
@@ -0,0 +1,91 @@
+package programacion.horarios.algoritmo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import programacion.horarios.estrategia.EstrategiaEvaluacion;
+import programacion.horarios.estrategia.EstrategiaMediaArmonica;
+import programacion.horarios.estrategia.EstrategiaPonderadaPorMinutos;
+import programacion.horarios.estrategia.EstrategiaPromedioMaxMin;
+import programacion.horarios.estrategia.EstrategiaPromedioSimple;
+import programacion.horarios.nucleo.Materia;
+import programacion.horarios.nucleo.RepositorioMaterias;
+import programacion.horarios.nucleo.Seleccion;
+
+import static org.junit.Assert.*;
+import static programacion.horarios.nucleo.CatalogosPrueba.agregarMateriasAleatorias;
+import static programacion.horarios.nucleo.CatalogosPrueba.seccion;
+
+/**
+ * Dinkelbach por componentes tiene que llegar al mismo óptimo que la ramificación y
+ * acotación sobre el catálogo entero. Cada día es una componente aparte.
+ */
+public class ConstructorHorarioPorComponentesTest {
+    private static final double TOLERANCIA = 1e-9;
+
+    private static List<Materia> materias(List<Seleccion> horario) {
+        return horario.stream().map(Seleccion::asignada).toList();
+    }
+
+    private static void assertMismoOptimo(String caso, RepositorioMaterias repositorio, EstrategiaEvaluacion estrategia) {
+        List<Materia> porComponentes = materias(
+            new ConstructorHorarioPorComponentes(repositorio, "X", estrategia).construir());
+        List<Materia> acotacion = materias(
+            new ConstructorHorarioRamificacionAcotacion(repositorio, "X", estrategia).construir());
+        String mensaje = caso + " " + estrategia.obtenerNombreEstrategia();
+
+        assertEquals(mensaje, acotacion.size(), porComponentes.size());
+        assertEquals(mensaje, estrategia.evaluar(acotacion), estrategia.evaluar(porComponentes), TOLERANCIA);
+        for (int i = 0; i < porComponentes.size(); i++) {
+            for (int j = i + 1; j < porComponentes.size(); j++) {
+                assertFalse(mensaje + ": choque", porComponentes.get(i).tieneConflictoCon(porComponentes.get(j)));
+            }
+        }
+    }
+
+    @Test
+    public void elMejorDeCadaComponenteNoEsElMejorDelHorario() {
+        // Solo en su componente a1 (10 en 1 h) le gana a a2 (9 en 3 h), pero junto a B
+        // (1 en 10 h) conviene a2: 2220/780 contra 1200/660.
+        List<Materia> catalogo = List.of(
+            seccion("A", "G0", 10, "1", "0700-0800"),
+            seccion("A", "G1", 9, "1", "0900-1200"),
+            seccion("B", "G0", 1, "2", "0700-1700"));
+        RepositorioMaterias repositorio = new RepositorioMaterias(catalogo);
+        ConstructorHorarioPorComponentes constructor =
+            new ConstructorHorarioPorComponentes(repositorio, "X", new EstrategiaPonderadaPorMinutos());
+        assertEquals(2, constructor.contarComponentes());
+
+        List<Seleccion> horario = constructor.construir();
+        assertTrue(horario.stream().anyMatch(s -> s.asignada().obtenerOriginal() == catalogo.get(1)));
+        assertEquals(2220.0 / 780, new EstrategiaPonderadaPorMinutos().evaluar(materias(horario)), TOLERANCIA);
+        assertMismoOptimo("mano", repositorio, new EstrategiaPonderadaPorMinutos());
+    }
+
+    @Test
+    public void catalogosAleatoriosDanElMismoPuntajeQueLaRamificacion() {
+        EstrategiaEvaluacion[] estrategias = {
+            new EstrategiaPonderadaPorMinutos(), new EstrategiaPromedioSimple(),
+            new EstrategiaMediaArmonica(), new EstrategiaPromedioMaxMin()};
+        Random azar = new Random(3);
+        int variasComponentes = 0;
+        for (int caso = 0; caso < 150; caso++) {
+            RepositorioMaterias repositorio = new RepositorioMaterias(catalogoAleatorio(azar));
+            if (new ConstructorHorarioPorComponentes(repositorio, "X").contarComponentes() > 1) variasComponentes++;
+            for (EstrategiaEvaluacion estrategia : estrategias) {
+                assertMismoOptimo("caso " + caso, repositorio, estrategia);
+            }
+        }
+        assertTrue(variasComponentes > 75);
+    }
+
+    // Un grupo de materias por día; dentro del día los choques son frecuentes
+    private static List<Materia> catalogoAleatorio(Random azar) {
+        List<Materia> catalogo = new ArrayList<>();
+        for (int dia = 1 + azar.nextInt(4); dia > 0; dia--) {
+            agregarMateriasAleatorias(catalogo, azar, "M" + dia + "_", 1 + azar.nextInt(4), 4, String.valueOf(dia));
+        }
+        return catalogo;
+    }
+}
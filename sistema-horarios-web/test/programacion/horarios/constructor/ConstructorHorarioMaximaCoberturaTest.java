@@ -0,0 +1,108 @@
+package programacion.horarios.constructor;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+import programacion.horarios.constructor.ConstructorHorarioMaximaCobertura.ModoBusqueda;
+import programacion.horarios.estrategia.EstrategiaPonderadaPorMinutos;
+import programacion.horarios.nucleo.Materia;
+import programacion.horarios.nucleo.RepositorioMaterias;
+import programacion.horarios.nucleo.Seleccion;
+
+import static org.junit.Assert.*;
+import static programacion.horarios.nucleo.CatalogosPrueba.agregarMateriasAleatorias;
+import static programacion.horarios.nucleo.CatalogosPrueba.seccion;
+
+/**
+ * El salto dirigido por conflictos y los nogoods solo evitan ramas que fallan: el
+ * horario tiene que ser exactamente el del retroceso cronológico, y los reinicios
+ * tienen que llegar a la misma factibilidad con un horario válido.
+ */
+public class ConstructorHorarioMaximaCoberturaTest {
+
+    private static List<Seleccion> construir(RepositorioMaterias repositorio, ModoBusqueda modo) {
+        return new ConstructorHorarioMaximaCobertura(repositorio, "X", new EstrategiaPonderadaPorMinutos(), modo, 7L)
+            .construir();
+    }
+
+    private static void assertMismasSecciones(String caso, List<Seleccion> esperado, List<Seleccion> obtenido) {
+        assertEquals(caso, esperado.size(), obtenido.size());
+        for (int i = 0; i < esperado.size(); i++) {
+            assertSame(caso, esperado.get(i).asignada().obtenerOriginal(), obtenido.get(i).asignada().obtenerOriginal());
+        }
+    }
+
+    private static void assertValido(String caso, RepositorioMaterias repositorio, List<Seleccion> horario) {
+        Set<String> materias = new HashSet<>();
+        for (int i = 0; i < horario.size(); i++) {
+            Materia a = horario.get(i).asignada();
+            assertTrue(caso + ": materia repetida", materias.add(a.obtenerNombreMateria()));
+            for (int j = i + 1; j < horario.size(); j++) {
+                assertFalse(caso + ": choque", a.tieneConflictoCon(horario.get(j).asignada()));
+            }
+        }
+        if (!horario.isEmpty()) assertEquals(caso, repositorio.obtenerTodosLosNombresMaterias(), materias);
+    }
+
+    @Test
+    public void saltaHastaLaEleccionQueCausaElConflicto() {
+        // C choca con a1 en todas sus secciones; B es independiente. El cronológico
+        // prueba cada sección de B antes de volver a A; el salto va directo a A.
+        List<Materia> catalogo = List.of(
+            seccion("A", "G0", 10, "1", "0700-0800"),
+            seccion("A", "G1", 1, "1", "0900-1000"),
+            seccion("B", "G0", 9, "2", "0700-0800"),
+            seccion("B", "G1", 8, "2", "0800-0900"),
+            seccion("B", "G2", 7, "2", "0900-1000"),
+            seccion("C", "G0", 9, "1", "0700-0800"),
+            seccion("C", "G1", 8, "1", "0730-0830"),
+            seccion("C", "G2", 7, "1", "0700-0900"));
+        RepositorioMaterias repositorio = new RepositorioMaterias(catalogo);
+
+        List<Seleccion> cronologico = construir(repositorio, ModoBusqueda.RETROCESO);
+        List<Seleccion> salto = construir(repositorio, ModoBusqueda.SALTO_DIRIGIDO);
+        assertMismasSecciones("mano", cronologico, salto);
+        assertValido("mano", repositorio, salto);
+        assertTrue(salto.stream().anyMatch(s -> s.asignada().obtenerOriginal() == catalogo.get(1)));
+    }
+
+    @Test
+    public void sinHorarioPosibleDevuelveVacio() {
+        RepositorioMaterias repositorio = new RepositorioMaterias(List.of(
+            seccion("A", "G0", 10, "1", "0700-0800"),
+            seccion("B", "G0", 9, "1", "0700-0800"),
+            seccion("C", "G0", 9, "2", "0700-0800"),
+            seccion("C", "G1", 9, "2", "0800-0900")));
+        for (ModoBusqueda modo : ModoBusqueda.values()) {
+            assertTrue(modo.name(), construir(repositorio, modo).isEmpty());
+        }
+    }
+
+    @Test
+    public void catalogosAleatoriosDanElMismoHorarioQueElRetroceso() {
+        Random azar = new Random(11);
+        int factibles = 0;
+        for (int caso = 0; caso < 300; caso++) {
+            RepositorioMaterias repositorio = new RepositorioMaterias(catalogoAleatorio(azar));
+            List<Seleccion> cronologico = construir(repositorio, ModoBusqueda.RETROCESO);
+            List<Seleccion> salto = construir(repositorio, ModoBusqueda.SALTO_DIRIGIDO);
+            List<Seleccion> reinicios = construir(repositorio, ModoBusqueda.REINICIOS);
+
+            assertMismasSecciones("caso " + caso, cronologico, salto);
+            assertEquals("caso " + caso, cronologico.isEmpty(), reinicios.isEmpty());
+            assertValido("caso " + caso, repositorio, reinicios);
+            if (!salto.isEmpty()) factibles++;
+        }
+        // La muestra debe tener de los dos tipos para que la comparación diga algo
+        assertTrue(factibles > 30 && factibles < 270);
+    }
+
+    private static List<Materia> catalogoAleatorio(Random azar) {
+        List<Materia> catalogo = new ArrayList<>();
+        agregarMateriasAleatorias(catalogo, azar, "M", 4 + azar.nextInt(10), 6, "1", "2", "3");
+        return catalogo;
+    }
+}
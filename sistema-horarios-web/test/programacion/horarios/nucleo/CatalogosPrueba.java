@@ -0,0 +1,37 @@
+package programacion.horarios.nucleo;
+
+import java.util.List;
+import java.util.Random;
+
+/** Catálogos chicos para las pruebas de los constructores. */
+public final class CatalogosPrueba {
+
+    private CatalogosPrueba() {
+    }
+
+    /** Sección de un solo bloque; el profesor es único por materia y grupo. */
+    public static Materia seccion(String materia, String grupo, double calificacion, String dias, String rango) {
+        return Materia.constructor(new Profesor("Prof", grupo + materia, calificacion), materia, grupo)
+            .agregarBloqueHorario(dias, rango)
+            .construir();
+    }
+
+    /**
+     * Agrega {@code materias} materias ({@code prefijo}0, {@code prefijo}1...) con 1 a
+     * {@code maxSecciones} secciones en los grupos G0, G1... Cada sección dura de una hora
+     * a dos y media, empieza entre las 7:00 y las 16:30 y cae en uno de {@code dias}. Como
+     * todas tienen sección en G0, ese grupo cubre todas las materias.
+     */
+    public static void agregarMateriasAleatorias(List<Materia> catalogo, Random azar, String prefijo,
+                                                 int materias, int maxSecciones, String... dias) {
+        for (int m = 0; m < materias; m++) {
+            int secciones = 1 + azar.nextInt(maxSecciones);
+            for (int s = 0; s < secciones; s++) {
+                int inicio = 7 * 60 + 30 * azar.nextInt(20);
+                int fin = inicio + 60 + 30 * azar.nextInt(4);
+                catalogo.add(seccion(prefijo + m, "G" + s, 1 + azar.nextInt(10), dias[azar.nextInt(dias.length)],
+                    String.format("%02d%02d-%02d%02d", inicio / 60, inicio % 60, fin / 60, fin % 60)));
+            }
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package programacion.horarios.servicio;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Reloj falso en nanosegundos. Con un TTL de 63 s cada tick dura 1 s. Cada entrada pesa
+ * 100 sobre 10 000: caben 100, la ventana es una sola entrada y el sketch es lo bastante
+ * ancho para que las colisiones no decidan ningún duelo.
+ */
+public class CacheAcotadaTest {
+    private static final long SEGUNDO = 1_000_000_000L;
+    private static final Duration TTL = Duration.ofSeconds(63);
+
+    private AtomicLong reloj;
+    private CacheAcotada<String, String> cache;
+
+    @Before
+    public void preparar() {
+        reloj = new AtomicLong();
+        cache = new CacheAcotada<>(10_000, TTL, valor -> 100, reloj::get);
+    }
+
+    private void llenar(String prefijo, int cantidad) {
+        for (int i = 0; i < cantidad; i++) {
+            cache.guardar(prefijo + i, "v");
+        }
+    }
+
+    @Test
+    public void nuncaPasaDelPesoMaximo() {
+        llenar("k", 1_000);
+        assertEquals(100, cache.obtenerTamano());
+        assertEquals(10_000, cache.obtenerPeso());
+        assertEquals(900, cache.obtenerDesalojos());
+    }
+
+    @Test
+    public void valorMasPesadoQueLaCacheNoSeGuarda() {
+        CacheAcotada<String, String> chica = new CacheAcotada<>(10, TTL, String::length, reloj::get);
+        chica.guardar("grande", "mas de diez caracteres");
+        assertNull(chica.consultar("grande"));
+        assertEquals(1, chica.obtenerRechazadas());
+    }
+
+    @Test
+    public void claveNuevaDeUnSoloUsoNoEntraAlPrincipalLleno() {
+        llenar("k", 100);
+        cache.guardar("nueva", "v");
+        cache.guardar("empuja", "v"); // saca a "nueva" de la ventana: empata con la víctima y pierde
+        assertNull(cache.consultar("nueva"));
+        assertNotNull(cache.consultar("k1"));
+    }
+
+    @Test
+    public void claveFrecuenteDesplazaALaVictimaDelPrincipal() {
+        llenar("k", 100);
+        for (int i = 0; i < 8; i++) {
+            assertNull(cache.obtener("popular")); // los fallos también cuentan en el sketch
+        }
+        cache.guardar("popular", "v");
+        cache.guardar("empuja", "v");
+        assertNotNull(cache.consultar("popular"));
+        assertNull("la más antigua de prueba es la víctima", cache.consultar("k0"));
+    }
+
+    @Test
+    public void unAciertoEnPruebaProtegeLaEntrada() {
+        cache.guardar("a", "v");
+        cache.guardar("b", "v");
+        llenar("k", 98); // principal lleno: a, b, k0..k96; k97 en la ventana
+        assertNotNull(cache.obtener("a")); // asciende a protegida
+
+        for (int i = 0; i < 8; i++) {
+            cache.obtener("popular");
+        }
+        cache.guardar("popular", "v");
+        cache.guardar("empuja", "v");
+        assertNotNull(cache.consultar("popular"));
+        assertNotNull("a es más antigua que b, pero está protegida", cache.consultar("a"));
+        assertNull(cache.consultar("b"));
+    }
+
+    @Test
+    public void siUnaDeLasVictimasEsMasFrecuenteNoSaleNinguna() {
+        CacheAcotada<String, Integer> variable = new CacheAcotada<>(10_000, TTL, valor -> valor, reloj::get);
+        for (int i = 0; i < 8; i++) {
+            variable.obtener("b");
+        }
+        for (int i = 0; i < 4; i++) {
+            variable.obtener("grande");
+        }
+        variable.guardar("a", 100);
+        variable.guardar("b", 100);
+        for (int i = 0; i < 96; i++) {
+            variable.guardar("k" + i, 100); // principal: a, b, k0..k94; k95 en la ventana
+        }
+        variable.guardar("grande", 300); // k95 sale de la ventana y empata con a
+        variable.guardar("empuja", 300); // para que entre "grande" tendrían que salir a, b y k0
+
+        assertNull(variable.consultar("grande"));
+        assertNotNull("a no sale si igual se rechaza a la candidata", variable.consultar("a"));
+        assertNotNull(variable.consultar("b"));
+        assertEquals(10_000, variable.obtenerPeso());
+    }
+
+    @Test
+    public void rafagaDeClavesNuevasNoDesplazaALasFrecuentes() {
+        for (int i = 0; i < 50; i++) {
+            cache.guardar("frecuente" + i, "v");
+            for (int j = 0; j < 5; j++) {
+                cache.obtener("frecuente" + i);
+            }
+        }
+        llenar("rafaga", 5_000);
+        for (int i = 0; i < 50; i++) {
+            assertNotNull("frecuente" + i, cache.consultar("frecuente" + i));
+        }
+    }
+
+    @Test
+    public void consultarNoCuentaNiRegistraElAcceso() {
+        cache.guardar("a", "v");
+        cache.consultar("a");
+        cache.consultar("b");
+        assertEquals(0, cache.obtenerAciertos());
+        assertEquals(0, cache.obtenerFallos());
+    }
+
+    @Test
+    public void laEntradaViveAlMenosSuTtl() {
+        reloj.set(SEGUNDO / 2); // a mitad de un tick: vence a los 63.5 s
+        cache.guardar("a", "v");
+
+        reloj.set(63 * SEGUNDO + SEGUNDO / 4);
+        assertNotNull("no vence antes del TTL", cache.consultar("a"));
+        reloj.set(63 * SEGUNDO + SEGUNDO / 2);
+        assertNotNull("puede vencer hasta un tick tarde", cache.consultar("a"));
+        reloj.set(64 * SEGUNDO);
+        assertNull(cache.consultar("a"));
+        assertEquals(1, cache.obtenerExpiradas());
+    }
+
+    @Test
+    public void laEntradaVenceAlCumplirElTtlSiSeEscribeAlInicioDelTick() {
+        reloj.set(10 * SEGUNDO);
+        cache.guardar("a", "v");
+        reloj.set(73 * SEGUNDO - 1);
+        assertNotNull(cache.consultar("a"));
+        reloj.set(73 * SEGUNDO);
+        assertNull(cache.consultar("a"));
+    }
+
+    @Test
+    public void expirarVencidasLiberaSinOtrasOperaciones() {
+        llenar("k", 10);
+        reloj.set(64 * SEGUNDO);
+        cache.expirarVencidas();
+        assertEquals(0, cache.obtenerTamano());
+        assertEquals(0, cache.obtenerPeso());
+        assertEquals(10, cache.obtenerExpiradas());
+    }
+
+    @Test
+    public void saltoDeVariasVueltasDeLaRuedaExpiraTodo() {
+        for (int i = 0; i < 200; i++) {
+            reloj.set(i * SEGUNDO / 3);
+            cache.guardar("k" + i, "v");
+        }
+        reloj.addAndGet(1_000 * SEGUNDO);
+        cache.expirarVencidas();
+        assertEquals(0, cache.obtenerTamano());
+    }
+
+    @Test
+    public void reescribirReiniciaElVencimiento() {
+        cache.guardar("a", "v1");
+        reloj.set(40 * SEGUNDO);
+        cache.guardar("a", "v2");
+        reloj.set(70 * SEGUNDO);
+        assertEquals("v2", cache.consultar("a"));
+        assertEquals(100, cache.obtenerPeso());
+    }
+
+    @Test
+    public void invalidarSiQuitaSoloLasQueCumplen() {
+        CacheAcotada<Integer, String> numeros = new CacheAcotada<>(10_000, TTL, valor -> 100, reloj::get);
+        for (int i = 0; i < 10; i++) {
+            numeros.guardar(i, i % 2 == 0 ? "par" : "impar");
+        }
+        assertEquals(5, numeros.invalidarSi((clave, valor) -> valor.equals("par")));
+        assertEquals(5, numeros.obtenerInvalidadas());
+        assertEquals(5, numeros.obtenerTamano());
+        assertEquals(500, numeros.obtenerPeso());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i % 2 == 0 ? null : "impar", numeros.consultar(i));
+        }
+        // Las quitadas ya no están en la rueda: vencer después no cuenta nada más
+        reloj.set(64 * SEGUNDO);
+        numeros.expirarVencidas();
+        assertEquals(5, numeros.obtenerExpiradas());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rechazaPesoMaximoNoPositivo() {
+        new CacheAcotada<String, String>(0, TTL, valor -> 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rechazaTtlNulo() {
+        new CacheAcotada<String, String>(10, Duration.ZERO, valor -> 1);
+    }
+}
@@ -0,0 +1,155 @@
+package programacion.horarios.servicio;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CacheDiscoTest {
+    private static final long CAPACIDAD = 4096;
+    private static final long VERSION = 0x1234L;
+    private static final long DISPOSICION = 0x5678L;
+
+    private Path archivo;
+    private CacheDisco disco;
+
+    @Before
+    public void preparar() throws IOException {
+        archivo = Files.createTempFile("cache-horarios", ".bin");
+        disco = abrir(VERSION, DISPOSICION);
+    }
+
+    @After
+    public void limpiar() throws IOException {
+        disco.cerrar();
+        Files.deleteIfExists(archivo);
+    }
+
+    private CacheDisco abrir(long version, long disposicion) throws IOException {
+        return new CacheDisco(archivo, CAPACIDAD, version, disposicion);
+    }
+
+    private CacheDisco reabrir(long version, long disposicion) throws IOException {
+        disco.cerrar();
+        disco = abrir(version, disposicion);
+        return disco;
+    }
+
+    @Test
+    public void sobreviveAReabrirElArchivo() throws IOException {
+        disco.agregar("maxcoverage|a", new int[]{3, 1, 4}, 8.5, VERSION, DISPOSICION);
+        disco.agregar("astar|ñandú", new int[]{}, 0.0, VERSION, DISPOSICION);
+
+        reabrir(VERSION, DISPOSICION);
+        assertEquals(2, disco.obtenerEntradas());
+        CacheDisco.HorarioEnDisco horario = disco.buscar("maxcoverage|a", VERSION, DISPOSICION);
+        assertArrayEquals(new int[]{3, 1, 4}, horario.idsSecciones());
+        assertEquals(8.5, horario.puntaje(), 0.0);
+        assertArrayEquals(new int[]{}, disco.buscar("astar|ñandú", VERSION, DISPOSICION).idsSecciones());
+        assertNull(disco.buscar("otra", VERSION, DISPOSICION));
+    }
+
+    @Test
+    public void ignoraLosRegistrosDeOtroCatalogo() throws IOException {
+        disco.agregar("k", new int[]{1}, 1.0, VERSION, DISPOSICION);
+        disco.agregar("vieja", new int[]{2}, 1.0, VERSION - 1, DISPOSICION); // se escribe, no se indexa
+        assertNull(disco.buscar("vieja", VERSION - 1, DISPOSICION));
+
+        reabrir(VERSION, DISPOSICION + 1); // mismo contenido en otro orden: los ids no sirven
+        assertEquals(0, disco.obtenerEntradas());
+        assertNull(disco.buscar("k", VERSION, DISPOSICION));
+
+        disco.reindexar(VERSION - 1, DISPOSICION);
+        assertArrayEquals(new int[]{2}, disco.buscar("vieja", VERSION - 1, DISPOSICION).idsSecciones());
+    }
+
+    @Test
+    public void buscarCompruebaElCatalogoEsperado() {
+        disco.agregar("k", new int[]{1}, 1.0, VERSION, DISPOSICION);
+        assertNull(disco.buscar("k", VERSION + 1, DISPOSICION));
+    }
+
+    @Test
+    public void ganaElUltimoRegistroDeUnaClave() throws IOException {
+        disco.agregar("k", new int[]{1}, 1.0, VERSION, DISPOSICION);
+        disco.agregar("k", new int[]{2, 3}, 2.0, VERSION, DISPOSICION);
+        assertArrayEquals(new int[]{2, 3}, disco.buscar("k", VERSION, DISPOSICION).idsSecciones());
+
+        reabrir(VERSION, DISPOSICION);
+        assertEquals(1, disco.obtenerEntradas());
+        assertArrayEquals(new int[]{2, 3}, disco.buscar("k", VERSION, DISPOSICION).idsSecciones());
+    }
+
+    @Test
+    public void registroAMedioEscribirSeDescartaYSeSobreescribe() throws IOException {
+        disco.agregar("a", new int[]{1}, 1.0, VERSION, DISPOSICION);
+        int fin = disco.obtenerBytesUsados();
+        disco.cerrar();
+        // Un corte antes de escribir la longitud: cuerpo y CRC presentes, longitud en cero
+        try (RandomAccessFile crudo = new RandomAccessFile(archivo.toFile(), "rw")) {
+            crudo.seek(fin + Integer.BYTES);
+            crudo.write(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12});
+        }
+
+        disco = abrir(VERSION, DISPOSICION);
+        assertEquals(1, disco.obtenerEntradas());
+        assertEquals(fin, disco.obtenerBytesUsados());
+        disco.agregar("b", new int[]{2}, 2.0, VERSION, DISPOSICION);
+
+        reabrir(VERSION, DISPOSICION);
+        assertEquals(2, disco.obtenerEntradas());
+        assertArrayEquals(new int[]{2}, disco.buscar("b", VERSION, DISPOSICION).idsSecciones());
+    }
+
+    @Test
+    public void crcQueNoCuadraCortaLaLectura() throws IOException {
+        disco.agregar("a", new int[]{1}, 1.0, VERSION, DISPOSICION);
+        int finPrimero = disco.obtenerBytesUsados();
+        disco.agregar("b", new int[]{2}, 2.0, VERSION, DISPOSICION);
+        disco.agregar("c", new int[]{3}, 3.0, VERSION, DISPOSICION);
+        disco.cerrar();
+        try (RandomAccessFile crudo = new RandomAccessFile(archivo.toFile(), "rw")) {
+            long posicion = finPrimero + 2 * Integer.BYTES + Long.BYTES * 2; // puntaje de "b"
+            crudo.seek(posicion);
+            int original = crudo.read();
+            crudo.seek(posicion);
+            crudo.write(original ^ 0xFF);
+        }
+
+        disco = abrir(VERSION, DISPOSICION);
+        assertEquals("solo antes del registro dañado", 1, disco.obtenerEntradas());
+        assertNull(disco.buscar("c", VERSION, DISPOSICION));
+        assertEquals(finPrimero, disco.obtenerBytesUsados());
+    }
+
+    @Test
+    public void archivoLlenoDejaDeAgregarPeroSigueLeyendo() throws IOException {
+        int[] ids = new int[100];
+        int agregados = 0;
+        while (disco.obtenerEscritos() == agregados && agregados < 1_000) {
+            disco.agregar("k" + agregados, ids, 0.0, VERSION, DISPOSICION);
+            agregados++;
+        }
+        long escritos = disco.obtenerEscritos();
+        assertTrue(escritos > 0 && escritos < agregados);
+
+        reabrir(VERSION, DISPOSICION);
+        assertEquals(escritos, disco.obtenerEntradas());
+        assertNotNull(disco.buscar("k0", VERSION, DISPOSICION));
+    }
+
+    @Test(expected = IOException.class)
+    public void otraInstanciaNoPuedeAbrirElMismoArchivo() throws IOException {
+        abrir(VERSION, DISPOSICION);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rechazaCapacidadDemasiadoChica() throws IOException {
+        new CacheDisco(archivo, 16, VERSION, DISPOSICION);
+    }
+}
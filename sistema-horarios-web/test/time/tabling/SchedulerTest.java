@@ -0,0 +1,185 @@
+package time.tabling;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * chooseWithoutOverlap salta por conflictos y guarda nogoods, pero tiene que devolver lo
+ * mismo que el retroceso cronológico. La referencia de aquí arma las materias en el mismo
+ * orden que Scheduler y recorre las opciones con una DFS simple.
+ */
+public class SchedulerTest {
+
+    private static Subjects seccion(String materia, String grupo, String profesor, double calificacion,
+                                    String dias, String rango) {
+        return new Subjects(calificacion, "Prof", profesor, materia, grupo).addBlock(dias, rango);
+    }
+
+    /* ---------- Referencia cronológica ---------- */
+
+    private static Map<String, Set<String>> cobertura(List<Subjects> pool) {
+        Map<String, Set<String>> mapa = new HashMap<>();
+        for (Subjects s : pool) {
+            mapa.computeIfAbsent(s.getGroup(), k -> new HashSet<>()).add(s.getSubject());
+        }
+        return mapa;
+    }
+
+    private static Set<String> materiasRequeridas(List<Subjects> pool) {
+        Map<String, Set<String>> cobertura = cobertura(pool);
+        Map<String, Integer> secciones = new HashMap<>();
+        for (Subjects s : pool) secciones.merge(s.getGroup(), 1, Integer::sum);
+        String grupo = cobertura.entrySet().stream()
+            .max((a, b) -> {
+                int cmp = Integer.compare(a.getValue().size(), b.getValue().size());
+                return cmp != 0 ? cmp : Integer.compare(secciones.get(a.getKey()), secciones.get(b.getKey()));
+            })
+            .map(Map.Entry::getKey).orElseThrow();
+        return cobertura.get(grupo);
+    }
+
+    private static Map<String, List<Subjects>> opciones(List<Subjects> pool, Set<String> requeridas) {
+        Map<String, List<Subjects>> porMateria = pool.stream()
+            .filter(s -> requeridas.contains(s.getSubject()))
+            .collect(Collectors.groupingBy(Subjects::getSubject));
+        porMateria.values().forEach(l -> l.sort(Comparator.comparingDouble(Subjects::getQualification).reversed()));
+        return porMateria;
+    }
+
+    private static boolean dfs(int i, List<String> orden, Map<String, List<Subjects>> opciones, List<Subjects> elegidas) {
+        if (i == orden.size()) return true;
+        for (Subjects candidata : opciones.get(orden.get(i))) {
+            if (elegidas.stream().anyMatch(e -> ScheduleUtils.overlapsAnyDay(e, candidata))) continue;
+            elegidas.add(candidata);
+            if (dfs(i + 1, orden, opciones, elegidas)) return true;
+            elegidas.remove(elegidas.size() - 1);
+        }
+        return false;
+    }
+
+    private static List<Subjects> referencia(List<Subjects> pool, Map<String, String> fijados) {
+        Set<String> requeridas = materiasRequeridas(pool);
+        Map<String, List<Subjects>> opciones = opciones(pool, requeridas);
+        List<Subjects> elegidas = new ArrayList<>();
+        for (String materia : requeridas) {
+            if (!fijados.containsKey(materia)) continue;
+            Subjects fijada = opciones.get(materia).stream()
+                .filter(o -> (o.getName() + " " + o.getLastname()).equalsIgnoreCase(fijados.get(materia)))
+                .findFirst().orElse(null);
+            if (fijada == null || elegidas.stream().anyMatch(e -> ScheduleUtils.overlapsAnyDay(e, fijada))) {
+                return List.of();
+            }
+            elegidas.add(fijada);
+        }
+        List<String> libres = requeridas.stream().filter(m -> !fijados.containsKey(m)).collect(Collectors.toList());
+        libres.sort(Comparator.comparingInt(m -> opciones.get(m).size()));
+        return dfs(0, libres, opciones, elegidas) ? elegidas : List.of();
+    }
+
+    /* ---------- Comparación ---------- */
+
+    private static void assertIgualALaReferencia(String caso, List<Subjects> pool, Map<String, String> fijados,
+                                                 List<Selection> obtenido) {
+        List<Subjects> esperado = referencia(pool, fijados);
+        assertEquals(caso, esperado.size(), obtenido.size());
+        for (int i = 0; i < esperado.size(); i++) {
+            Subjects e = esperado.get(i);
+            Selection o = obtenido.get(i);
+            assertEquals(caso, e.getGroup(), o.sourceGroup());
+            assertEquals(caso, e.getSubject(), o.assigned().getSubject());
+            assertEquals(caso, e.getLastname(), o.assigned().getLastname());
+            assertEquals(caso, "X", o.assigned().getGroup());
+            for (int j = i + 1; j < obtenido.size(); j++) {
+                assertFalse(caso + ": choque", ScheduleUtils.overlapsAnyDay(o.assigned(), obtenido.get(j).assigned()));
+            }
+        }
+    }
+
+    @Test
+    public void saltaHastaLaEleccionQueCausaElConflicto() {
+        // C choca con A-G0 en todas sus secciones; B, en otro día, no tiene que ver
+        List<Subjects> pool = List.of(
+            seccion("A", "G0", "a0", 10, "1", "0700-0800"),
+            seccion("A", "G1", "a1", 1, "1", "0900-1000"),
+            seccion("B", "G0", "b0", 9, "2", "0700-0800"),
+            seccion("B", "G1", "b1", 8, "2", "0800-0900"),
+            seccion("B", "G2", "b2", 7, "2", "0900-1000"),
+            seccion("C", "G0", "c0", 9, "1", "0700-0800"),
+            seccion("C", "G1", "c1", 8, "1", "0730-0830"),
+            seccion("C", "G2", "c2", 7, "1", "0700-0900"));
+
+        List<Selection> horario = Scheduler.buildGroupFromMaxCoverageWithSource(pool, "X");
+        assertIgualALaReferencia("mano", pool, Map.of(), horario);
+        assertTrue(horario.stream().anyMatch(s -> s.assigned().getLastname().equals("a1")));
+    }
+
+    @Test
+    public void conProfesorFijadoLoRespetaYCompletaElResto() {
+        List<Subjects> pool = List.of(
+            seccion("A", "G0", "a0", 10, "1", "0700-0800"),
+            seccion("A", "G1", "a1", 5, "1", "0800-0900"),
+            seccion("B", "G0", "b0", 9, "1", "0800-0900"),
+            seccion("B", "G1", "b1", 8, "1", "0700-0800"));
+
+        List<Selection> horario = Scheduler.buildGroupWithPinnedTeachers(pool, "X", Map.of("A", "Prof a1"));
+        assertIgualALaReferencia("fijado", pool, Map.of("A", "Prof a1"), horario);
+        assertEquals("a1", horario.get(0).assigned().getLastname());
+        assertEquals("b1", horario.get(1).assigned().getLastname());
+    }
+
+    @Test
+    public void poolsAleatoriosDanElMismoHorarioQueLaReferencia() {
+        Random azar = new Random(5);
+        int factibles = 0;
+        for (int caso = 0; caso < 500; caso++) {
+            List<Subjects> pool = poolAleatorio(azar);
+            List<Selection> horario = Scheduler.buildGroupFromMaxCoverageWithSource(pool, "X");
+            assertIgualALaReferencia("caso " + caso, pool, Map.of(), horario);
+            if (!horario.isEmpty()) factibles++;
+        }
+        assertTrue(factibles > 50 && factibles < 450);
+    }
+
+    @Test
+    public void poolsAleatoriosConFijadosDanElMismoHorarioQueLaReferencia() {
+        Random azar = new Random(9);
+        int factibles = 0;
+        for (int caso = 0; caso < 500; caso++) {
+            List<Subjects> pool = poolAleatorio(azar);
+            Map<String, String> fijados = new HashMap<>();
+            for (int k = 1 + azar.nextInt(2); k > 0; k--) {
+                Subjects s = pool.get(azar.nextInt(pool.size()));
+                fijados.put(s.getSubject(), s.getName() + " " + s.getLastname());
+            }
+            List<Selection> horario = Scheduler.buildGroupWithPinnedTeachers(pool, "X", fijados);
+            assertIgualALaReferencia("caso " + caso, pool, fijados, horario);
+            if (!horario.isEmpty()) factibles++;
+        }
+        assertTrue(factibles > 50 && factibles < 450);
+    }
+
+    private static List<Subjects> poolAleatorio(Random azar) {
+        List<Subjects> pool = new ArrayList<>();
+        int materias = 4 + azar.nextInt(10);
+        for (int m = 0; m < materias; m++) {
+            int secciones = 1 + azar.nextInt(6);
+            for (int s = 0; s < secciones; s++) {
+                int inicio = 7 + azar.nextInt(8);
+                int fin = inicio + 1 + azar.nextInt(2);
+                pool.add(seccion("M" + m, "G" + s, "L" + azar.nextInt(4), 1 + azar.nextInt(10),
+                    String.valueOf(1 + azar.nextInt(3)), String.format("%02d00-%02d00", inicio, fin)));
+            }
+        }
+        return pool;
+    }
+}